@@ -0,0 +1,182 @@
+package com.github.and11;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates a synthetic schema bundle with an OASIS catalog and a corpus of documents against it.
+ * Schema {@code sN} imports {@code sN-1} through the catalog, so resolving the last schema pulls in the whole chain.
+ */
+public class CorpusGenerator {
+
+    private static final String NAMESPACE = "urn:xml-tools:bench:s";
+    private static final String SYSTEM_ID = "http://xml-tools.bench/s";
+
+    private int schemaCount = 10;
+    private int documentCount = 1000;
+    private int elementsPerDocument = 100;
+    private int depth = 5;
+    private double errorRate = 0.01;
+    private long seed = 42;
+
+    public static class Corpus {
+        private final Path schemaDir;
+        private final List<Path> documents;
+        private final int invalidDocuments;
+        private final long bytes;
+
+        Corpus(Path schemaDir, List<Path> documents, int invalidDocuments, long bytes) {
+            this.schemaDir = schemaDir;
+            this.documents = documents;
+            this.invalidDocuments = invalidDocuments;
+            this.bytes = bytes;
+        }
+
+        public Path getSchemaDir() {
+            return schemaDir;
+        }
+
+        public List<Path> getDocuments() {
+            return documents;
+        }
+
+        public int getInvalidDocuments() {
+            return invalidDocuments;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+
+    public CorpusGenerator setSchemaCount(int schemaCount) {
+        this.schemaCount = schemaCount;
+        return this;
+    }
+
+    public CorpusGenerator setDocumentCount(int documentCount) {
+        this.documentCount = documentCount;
+        return this;
+    }
+
+    public CorpusGenerator setElementsPerDocument(int elementsPerDocument) {
+        this.elementsPerDocument = elementsPerDocument;
+        return this;
+    }
+
+    public CorpusGenerator setDepth(int depth) {
+        this.depth = depth;
+        return this;
+    }
+
+    public CorpusGenerator setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    public CorpusGenerator setSeed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    public Corpus generate(Path directory) throws IOException {
+        Path schemaDir = Files.createDirectories(directory.resolve("schemas"));
+        Path documentDir = Files.createDirectories(directory.resolve("documents"));
+
+        for (int i = 0; i < schemaCount; i++) {
+            writeSchema(schemaDir.resolve("s" + i + ".xsd"), i);
+        }
+        writeCatalog(schemaDir.resolve("catalog.xml"));
+
+        Random random = new Random(seed);
+        List<Path> documents = new ArrayList<>(documentCount);
+        int invalid = 0;
+        long bytes = 0;
+        for (int i = 0; i < documentCount; i++) {
+            Path document = documentDir.resolve(String.format("d%07d.xml", i));
+            boolean valid = random.nextDouble() >= errorRate;
+            writeDocument(document, random.nextInt(schemaCount), valid, random);
+            if (!valid) {
+                invalid++;
+            }
+            bytes += Files.size(document);
+            documents.add(document);
+        }
+        return new Corpus(schemaDir, documents, invalid, bytes);
+    }
+
+    private void writeSchema(Path file, int index) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\"");
+            out.write(" targetNamespace=\"" + NAMESPACE + index + "\" xmlns:t=\"" + NAMESPACE + index + "\"");
+            if (index > 0) {
+                out.write(" xmlns:p=\"" + NAMESPACE + (index - 1) + "\"");
+            }
+            out.write(" elementFormDefault=\"qualified\">\n");
+            if (index > 0) {
+                out.write("  <xs:import namespace=\"" + NAMESPACE + (index - 1) + "\" schemaLocation=\""
+                        + SYSTEM_ID + (index - 1) + ".xsd\"/>\n");
+            }
+            out.write("  <xs:complexType name=\"Node\">\n");
+            out.write("    <xs:sequence>\n");
+            out.write("      <xs:element name=\"value\" type=\"xs:int\" minOccurs=\"0\" maxOccurs=\"unbounded\"/>\n");
+            out.write("      <xs:element name=\"node\" type=\"t:Node\" minOccurs=\"0\" maxOccurs=\"unbounded\"/>\n");
+            if (index > 0) {
+                out.write("      <xs:element ref=\"p:root\" minOccurs=\"0\"/>\n");
+            }
+            out.write("    </xs:sequence>\n");
+            out.write("    <xs:attribute name=\"id\" type=\"xs:string\"/>\n");
+            out.write("  </xs:complexType>\n");
+            out.write("  <xs:element name=\"root\" type=\"t:Node\"/>\n");
+            out.write("</xs:schema>\n");
+        }
+    }
+
+    private void writeCatalog(Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("<catalog xmlns=\"urn:oasis:names:tc:entity:xmlns:xml:catalog\">\n");
+            for (int i = 0; i < schemaCount; i++) {
+                out.write("  <uri name=\"" + NAMESPACE + i + "\" uri=\"s" + i + ".xsd\"/>\n");
+                out.write("  <system systemId=\"" + SYSTEM_ID + i + ".xsd\" uri=\"s" + i + ".xsd\"/>\n");
+            }
+            out.write("</catalog>\n");
+        }
+    }
+
+    /**
+     * Writes a chain of nested {@code node} elements {@code depth} levels deep with the element budget spread
+     * over the levels as {@code value} elements; an invalid document gets one non-integer value.
+     */
+    private void writeDocument(Path file, int schema, boolean valid, Random random) throws IOException {
+        int levels = Math.max(1, depth);
+        int valuesPerLevel = Math.max(1, elementsPerDocument / levels);
+        int invalidLevel = valid ? -1 : random.nextInt(levels);
+
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("<root xmlns=\"" + NAMESPACE + schema + "\" id=\"" + file.getFileName() + "\">");
+            for (int level = 0; level < levels; level++) {
+                if (level > 0) {
+                    out.write("<node id=\"n" + level + "\">");
+                }
+                for (int i = 0; i < valuesPerLevel; i++) {
+                    out.write("<value>");
+                    out.write(level == invalidLevel && i == 0 ? "not-a-number" : Integer.toString(random.nextInt()));
+                    out.write("</value>");
+                }
+                out.newLine();
+            }
+            for (int level = levels - 1; level > 0; level--) {
+                out.write("</node>");
+            }
+            out.write("</root>");
+            out.newLine();
+        }
+    }
+}
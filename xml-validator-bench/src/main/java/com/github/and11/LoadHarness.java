@@ -0,0 +1,184 @@
+package com.github.and11;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates a synthetic corpus and validates it end to end with 1 to N threads, reporting throughput,
+ * peak heap, GC time and scaling. Runs offline; all options are {@code --name=value}:
+ * <pre>
+ * java -cp ... com.github.and11.LoadHarness --dir=/tmp/xml-bench --schemas=10 --documents=10000
+ *     --elements=100 --depth=5 --errorRate=0.01 --threads=8 --seed=42
+ * </pre>
+ */
+public class LoadHarness {
+
+    private static class RunResult {
+        final int threads;
+        final long nanos;
+        final long peakHeap;
+        final long gcMillis;
+        final int invalidDocuments;
+
+        RunResult(int threads, long nanos, long peakHeap, long gcMillis, int invalidDocuments) {
+            this.threads = threads;
+            this.nanos = nanos;
+            this.peakHeap = peakHeap;
+            this.gcMillis = gcMillis;
+            this.invalidDocuments = invalidDocuments;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        Path dir = Paths.get(option(options, "dir", System.getProperty("java.io.tmpdir") + "/xml-validator-bench"));
+        int maxThreads = Integer.parseInt(option(options, "threads",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+
+        CorpusGenerator generator = new CorpusGenerator()
+                .setSchemaCount(Integer.parseInt(option(options, "schemas", "10")))
+                .setDocumentCount(Integer.parseInt(option(options, "documents", "10000")))
+                .setElementsPerDocument(Integer.parseInt(option(options, "elements", "100")))
+                .setDepth(Integer.parseInt(option(options, "depth", "5")))
+                .setErrorRate(Double.parseDouble(option(options, "errorRate", "0.01")))
+                .setSeed(Long.parseLong(option(options, "seed", "42")));
+
+        Files.createDirectories(dir);
+        long start = System.nanoTime();
+        CorpusGenerator.Corpus corpus = generator.generate(dir);
+        System.out.printf("generated %d documents (%.1f MB, %d invalid) in %d ms under %s%n",
+                corpus.getDocuments().size(), corpus.getBytes() / 1e6, corpus.getInvalidDocuments(),
+                (System.nanoTime() - start) / 1000000, dir);
+
+        ValidatorBuilder builder = new ValidatorBuilder();
+        builder.scanCatalogs(corpus.getSchemaDir());
+
+        start = System.nanoTime();
+        ValidatorPool pool = builder.createPool(maxThreads, 0);
+        pool.release(pool.borrow(new ValidationErrorHandler(0)));
+        System.out.printf("schema set up in %d ms%n", (System.nanoTime() - start) / 1000000);
+
+        List<Path> warmup = corpus.getDocuments().subList(0, Math.min(1000, corpus.getDocuments().size()));
+        run(pool, warmup, 1);
+
+        List<RunResult> results = new ArrayList<>();
+        for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+            results.add(run(pool, corpus.getDocuments(), threads));
+        }
+        pool.close();
+
+        report(results, corpus);
+    }
+
+    private static int nextThreadCount(int threads, int maxThreads) {
+        return threads == maxThreads ? threads + 1 : Math.min(threads * 2, maxThreads);
+    }
+
+    private static RunResult run(ValidatorPool pool, List<Path> documents, int threads) throws Exception {
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (memoryPool.getType() == MemoryType.HEAP) {
+                memoryPool.resetPeakUsage();
+                heapPools.add(memoryPool);
+            }
+        }
+        long gcBefore = gcMillis();
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger invalid = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    ValidationErrorHandler errorHandler = new ValidationErrorHandler(0);
+                    ValidatorBuilder.XmlValidator validator = pool.borrow(errorHandler);
+                    try {
+                        int index;
+                        while ((index = next.getAndIncrement()) < documents.size()) {
+                            int before = errorHandler.getErrorCount() + errorHandler.getFatalCount();
+                            validator.validate(documents.get(index));
+                            if (errorHandler.getErrorCount() + errorHandler.getFatalCount() > before) {
+                                invalid.incrementAndGet();
+                            }
+                        }
+                    } finally {
+                        pool.release(validator);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long nanos = System.nanoTime() - start;
+
+        long peakHeap = 0;
+        for (MemoryPoolMXBean memoryPool : heapPools) {
+            peakHeap += memoryPool.getPeakUsage().getUsed();
+        }
+        return new RunResult(threads, nanos, peakHeap, gcMillis() - gcBefore, invalid.get());
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    private static void report(List<RunResult> results, CorpusGenerator.Corpus corpus) {
+        int documents = corpus.getDocuments().size();
+        double baseline = 0;
+        System.out.printf("%n%7s %10s %10s %8s %8s %10s %13s %8s%n",
+                "threads", "seconds", "files/s", "MB/s", "speedup", "efficiency", "peak heap MB", "gc ms");
+        for (RunResult result : results) {
+            double seconds = result.nanos / 1e9;
+            double filesPerSecond = documents / seconds;
+            if (baseline == 0) {
+                baseline = filesPerSecond;
+            }
+            double speedup = filesPerSecond / baseline;
+            System.out.printf("%7d %10.2f %10.0f %8.1f %8.2f %9.0f%% %13.1f %8d%n",
+                    result.threads, seconds, filesPerSecond, corpus.getBytes() / 1e6 / seconds, speedup,
+                    100 * speedup / result.threads, result.peakHeap / 1e6, result.gcMillis);
+            if (result.invalidDocuments != corpus.getInvalidDocuments()) {
+                System.out.printf("        expected %d invalid documents, found %d%n",
+                        corpus.getInvalidDocuments(), result.invalidDocuments);
+            }
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private static String option(Map<String, String> options, String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+}
@@ -10,6 +10,20 @@ public class ValidateFiles {
     @Parameter
     private String[] excludes;
 
+    /**
+     * Zip based archives (jar, war, zip) whose entries are validated, relative to {@code ${project.build.directory}}.
+     * The validate goal runs in the {@code test} phase by default, before archives are packaged, so bind an
+     * execution to {@code verify} for them.
+     */
+    @Parameter
+    private String[] archives;
+
+    @Parameter
+    private String[] entryIncludes;
+
+    @Parameter
+    private String[] entryExcludes;
+
     public String[] getIncludes() {
         return includes;
     }
@@ -25,4 +39,28 @@ public class ValidateFiles {
     public void setExcludes(String[] excludes) {
         this.excludes = excludes;
     }
+
+    public String[] getArchives() {
+        return archives;
+    }
+
+    public void setArchives(String[] archives) {
+        this.archives = archives;
+    }
+
+    public String[] getEntryIncludes() {
+        return entryIncludes;
+    }
+
+    public void setEntryIncludes(String[] entryIncludes) {
+        this.entryIncludes = entryIncludes;
+    }
+
+    public String[] getEntryExcludes() {
+        return entryExcludes;
+    }
+
+    public void setEntryExcludes(String[] entryExcludes) {
+        this.entryExcludes = entryExcludes;
+    }
 }
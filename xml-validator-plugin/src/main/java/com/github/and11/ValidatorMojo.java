@@ -22,15 +22,22 @@ import org.codehaus.plexus.archiver.UnArchiver;
 import org.codehaus.plexus.archiver.manager.ArchiverManager;
 import org.codehaus.plexus.archiver.manager.NoSuchArchiverException;
 import org.codehaus.plexus.util.DirectoryScanner;
+import org.codehaus.plexus.util.SelectorUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -64,6 +71,13 @@ public class ValidatorMojo extends AbstractMojo {
     @Parameter(defaultValue = "${project.build.outputDirectory}", required = true, readonly = true)
     private File baseDir;
 
+    /**
+     * Directory relative archive paths are resolved against. Archives are only packaged there in the
+     * {@code package} phase, so validating them needs an execution bound to {@code verify}.
+     */
+    @Parameter(defaultValue = "${project.build.directory}", required = true, readonly = true)
+    private File buildDirectory;
+
     @Parameter
     private String schemaVersion;
 
@@ -79,6 +93,58 @@ public class ValidatorMojo extends AbstractMojo {
     @Parameter
     private String[] excludes;
 
+    /**
+     * When to stop validating. Defaults to MAX_ERRORS when maxErrors is set, NEVER otherwise.
+     */
+    @Parameter(property = "xml.failFast")
+    private FailFastPolicy.Mode failFast;
+
+    /**
+     * Number of errors and fatal errors after which validation stops; only valid with MAX_ERRORS.
+     */
+    @Parameter(property = "xml.maxErrors", defaultValue = "0")
+    private int maxErrors;
+
+    @Parameter(property = "xml.maxFileSize", defaultValue = "0")
+    private long maxFileSize;
+
+    @Parameter(property = "xml.maxDepth", defaultValue = "0")
+    private int maxDepth;
+
+    @Parameter(property = "xml.maxEntityExpansions", defaultValue = "0")
+    private int maxEntityExpansions;
+
+    @Parameter(property = "xml.fileTimeBudget", defaultValue = "0")
+    private long fileTimeBudget;
+
+    /**
+     * Bundle of the resolved schema closure. Used instead of the unpacked catalogs when its fingerprint
+     * matches the resolved schema dependencies, written from them when missing or stale.
+     */
+    @Parameter(property = "xml.schemaSnapshot")
+    private File schemaSnapshot;
+
+    @Parameter(property = "xml.progressInterval", defaultValue = "10")
+    private int progressInterval;
+
+    @Parameter(property = "xml.archiveThreads", defaultValue = "1")
+    private int archiveThreads;
+
+    @Parameter(property = "xml.aggregateErrors", defaultValue = "false")
+    private boolean aggregateErrors;
+
+    @Parameter(property = "xml.errorSamples", defaultValue = "5")
+    private int errorSamples;
+
+    @Parameter(property = "xml.schemalessFastPath", defaultValue = "false")
+    private boolean schemalessFastPath;
+
+    @Parameter(property = "xml.profileSchemas", defaultValue = "false")
+    private boolean profileSchemas;
+
+    @Parameter(defaultValue = "${project.build.directory}/xml-validator-profile.txt")
+    private File profileReport;
+
     public File getBaseDir() {
         return baseDir;
     }
@@ -91,23 +157,83 @@ public class ValidatorMojo extends AbstractMojo {
             return;
         }
 
-        try {
+        FailFastPolicy failFastPolicy = getFailFastPolicy();
 
-            ArrayList<Dependency> schemaDeps = filterDependencies();
-            System.out.println("des: " + schemaDeps);
-            unpack(schemaDeps);
+        try {
 
             ValidatorBuilder builder = new ValidatorBuilder();
-            builder.scanCatalogs(workingDir.toPath());
+            ArrayList<Dependency> schemaDeps = filterDependencies();
+            logger.info("schema dependencies: {}", schemaDeps.size());
+            if (logger.isDebugEnabled()) {
+                logger.debug("schema dependencies: {}", schemaDeps);
+            }
+            String fingerprint = schemaSnapshot != null ? fingerprint(schemaDeps) : null;
+            boolean useSnapshot = schemaSnapshot != null;
+            if (useSnapshot && fingerprint.equals(SchemaSnapshot.readFingerprint(schemaSnapshot.toPath()))) {
+                logger.info("using schema snapshot {}", schemaSnapshot);
+            } else {
+                if (useSnapshot && schemaSnapshot.isFile()) {
+                    logger.info("schema dependencies changed since {} was written, rebuilding it", schemaSnapshot);
+                }
+                unpack(schemaDeps);
+
+                builder.scanCatalogs(workingDir.toPath());
+                if (useSnapshot) {
+                    Files.createDirectories(schemaSnapshot.getAbsoluteFile().getParentFile().toPath());
+                    try {
+                        builder.writeSnapshot(schemaSnapshot.toPath(), fingerprint);
+                        logger.info("schema snapshot written to {}", schemaSnapshot);
+                    } catch (IllegalArgumentException e) {
+                        logger.warn("not using a schema snapshot: {}", e.getMessage());
+                        Files.deleteIfExists(schemaSnapshot.toPath());
+                        useSnapshot = false;
+                    }
+                }
+            }
+            if (useSnapshot) {
+                builder.useSnapshot(schemaSnapshot.toPath());
+            }
 
-            ValidationErrorHandler errorHandler = builder.createErrorHandler();
+            ValidationErrorHandler errorHandler = aggregateErrors
+                    ? builder.createAggregatingErrorHandler(errorSamples)
+                    : builder.createErrorHandler();
             builder.setErrorHandler(errorHandler);
+            builder.setFailFastPolicy(failFastPolicy);
+            builder.setResourceLimits(new ResourceLimits()
+                    .setMaxFileSize(maxFileSize)
+                    .setMaxDepth(maxDepth)
+                    .setMaxEntityExpansions(maxEntityExpansions)
+                    .setTimeBudgetMillis(fileTimeBudget));
+            builder.setSchemalessFastPath(schemalessFastPath);
+            ProgressReporter progress = new ProgressReporter(TimeUnit.SECONDS.toMillis(progressInterval));
+            builder.setProgressReporter(progress);
+
+            ResolutionProfiler profiler = null;
+            if (profileSchemas) {
+                profiler = new ResolutionProfiler();
+                builder.setProfiler(profiler);
+            }
 
             ValidatorBuilder.XmlValidator validator = builder.build();
 
             List<File> validatingFiles = getValidatingFiles(getBaseDir(), resources.getIncludes(), resources.getExcludes());
+            int validated = 0;
             for (File file : validatingFiles) {
+                if (validator.isCancelled()) {
+                    logger.warn("fail-fast: stopped after {} of {} files", validated, validatingFiles.size());
+                    break;
+                }
                 validator.validate(file.toPath());
+                validated++;
+            }
+
+            if (resources.getArchives() != null && !validator.isCancelled()) {
+                validateArchives(builder, errorHandler);
+            }
+            progress.finish();
+
+            if (profiler != null) {
+                writeProfile(profiler);
             }
 
             ErrorsSerializer serializer = new ErrorsSerializer();
@@ -118,6 +244,56 @@ public class ValidatorMojo extends AbstractMojo {
         }
     }
 
+    private FailFastPolicy getFailFastPolicy() throws MojoExecutionException {
+        FailFastPolicy.Mode mode = failFast;
+        if (mode == null) {
+            mode = maxErrors > 0 ? FailFastPolicy.Mode.MAX_ERRORS : FailFastPolicy.Mode.NEVER;
+        }
+        if (mode == FailFastPolicy.Mode.MAX_ERRORS && maxErrors <= 0) {
+            throw new MojoExecutionException("xml.failFast=MAX_ERRORS requires a positive xml.maxErrors, got " + maxErrors);
+        }
+        if (mode != FailFastPolicy.Mode.MAX_ERRORS && maxErrors != 0) {
+            throw new MojoExecutionException("xml.maxErrors=" + maxErrors + " only applies to xml.failFast=MAX_ERRORS, not " + mode);
+        }
+        return new FailFastPolicy(mode, maxErrors);
+    }
+
+    private void validateArchives(ValidatorBuilder builder, ValidationErrorHandler errorHandler) {
+        String[] entryIncludes = resources.getEntryIncludes() != null
+                ? resources.getEntryIncludes() : new String[]{"**/*.xml"};
+        String[] entryExcludes = resources.getEntryExcludes() != null
+                ? resources.getEntryExcludes() : new String[0];
+        Predicate<String> entryFilter = entry -> matchesAny(entryIncludes, entry) && !matchesAny(entryExcludes, entry);
+
+        try (ArchiveValidator archiveValidator = new ArchiveValidator(builder, archiveThreads)) {
+            for (File archive : asFiles(buildDirectory, resources.getArchives())) {
+                if (archiveValidator.isCancelled()) {
+                    logger.warn("fail-fast: skipping archive {}", archive);
+                    continue;
+                }
+                if (!archive.isFile()) {
+                    throw new RuntimeException("archive " + archive + " not found; archives are validated by an execution bound to the verify phase");
+                }
+                archiveValidator.validate(archive.toPath(), entryFilter, errorHandler);
+            }
+        }
+    }
+
+    private static boolean matchesAny(String[] patterns, String entry) {
+        for (String pattern : patterns) {
+            if (SelectorUtils.matchPath(pattern, entry, "/", true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeProfile(ResolutionProfiler profiler) throws IOException {
+        Files.createDirectories(profileReport.getParentFile().toPath());
+        Files.write(profileReport.toPath(), profiler.report().getBytes(StandardCharsets.UTF_8));
+        logger.info("schema resolution profile written to {}", profileReport);
+    }
+
     private void unpack(ArrayList<Dependency> schemaDeps) throws ArtifactResolverException, NoSuchArchiverException, IOException {
         for (Dependency schemaDep : schemaDeps) {
             unpackDependency(schemaDep, workingDir.toPath().resolve(schemaDep.getGroupId() + "-" + schemaDep.getArtifactId()).toFile());
@@ -165,6 +341,30 @@ public class ValidatorMojo extends AbstractMojo {
                 .toString();
     }
 
+    /**
+     * Hash of the coordinates of the schema dependencies and of the artifacts they resolve to, so that a
+     * rebuilt snapshot dependency changes it as well.
+     */
+    private String fingerprint(List<Dependency> schemaDeps) throws ArtifactResolverException, NoSuchAlgorithmException {
+        List<String> entries = new ArrayList<>();
+        for (Dependency schemaDep : schemaDeps) {
+            File file = getArtifact(schemaDep).getFile();
+            entries.add(asString(schemaDep) + ":" + file.length() + ":" + file.lastModified());
+        }
+        Collections.sort(entries);
+
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        for (String entry : entries) {
+            digest.update(entry.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
     private void unpackDependency(Dependency dependency, File where) throws IOException, NoSuchArchiverException, ArtifactResolverException {
         if (!Files.exists(where.toPath())) {
             Files.createDirectories(where.toPath());
@@ -189,7 +389,10 @@ public class ValidatorMojo extends AbstractMojo {
             ds.setExcludes(excludes);
         }
         ds.scan();
-        logger.info("total files found: {}", Arrays.asList(ds.getIncludedFiles()));
+        logger.info("total files found: {}", ds.getIncludedFiles().length);
+        if (logger.isDebugEnabled()) {
+            logger.debug("files found: {}", Arrays.asList(ds.getIncludedFiles()));
+        }
         return asFiles(baseDir, ds.getIncludedFiles());
     }
 
@@ -0,0 +1,155 @@
+package com.github.and11;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Validates XML entries of zip based archives (jar, war, zip) without extracting them, optionally
+ * spreading the entries of an archive over several threads.
+ */
+public class ArchiveValidator implements AutoCloseable {
+
+    public static final Logger logger = LoggerFactory.getLogger(ArchiveValidator.class);
+
+    private static class SynchronizedErrorHandler implements ErrorHandler {
+        private final ErrorHandler delegate;
+
+        SynchronizedErrorHandler(ErrorHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void warning(SAXParseException exception) throws SAXException {
+            delegate.warning(exception);
+        }
+
+        @Override
+        public synchronized void error(SAXParseException exception) throws SAXException {
+            delegate.error(exception);
+        }
+
+        @Override
+        public synchronized void fatalError(SAXParseException exception) throws SAXException {
+            delegate.fatalError(exception);
+        }
+    }
+
+    private final ValidatorBuilder builder;
+    private final ValidatorPool pool;
+    private final int threads;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final Set<ValidatorBuilder.XmlValidator> active = ConcurrentHashMap.newKeySet();
+
+    public ArchiveValidator(ValidatorBuilder builder, int threads) {
+        this.builder = builder;
+        this.threads = Math.max(1, threads);
+        this.pool = builder.createPool(this.threads, 0);
+    }
+
+    /**
+     * Validates the entries of {@code archive} whose names are accepted by {@code entryFilter}.
+     * Errors are reported to {@code errorHandler}, which is only called by one thread at a time, and counted
+     * for the fail-fast policy in the builder's {@link ValidatorBuilder#getFailFastRun() run}.
+     */
+    public void validate(Path archive, Predicate<String> entryFilter, ErrorHandler errorHandler) {
+        if (isCancelled()) {
+            logger.debug("validation cancelled, skipping archive {}", archive);
+            return;
+        }
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            List<ZipEntry> entries = zip.stream()
+                    .filter(entry -> !entry.isDirectory())
+                    .filter(entry -> entryFilter.test(entry.getName()))
+                    .collect(Collectors.toList());
+            logger.info("validating {} entries of archive {}", entries.size(), archive);
+
+            AtomicInteger next = new AtomicInteger();
+            int workers = Math.min(threads, entries.size());
+            if (workers <= 1) {
+                validateEntries(zip, entries, next, errorHandler);
+                return;
+            }
+
+            ErrorHandler handler = new SynchronizedErrorHandler(errorHandler);
+            ExecutorService executor = Executors.newFixedThreadPool(workers);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < workers; i++) {
+                    futures.add(executor.submit(() -> validateEntries(zip, entries, next, handler)));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("While reading archive " + archive + ": " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while validating archive " + archive, e);
+        } catch (ExecutionException e) {
+            cancel();
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("While validating archive " + archive + ": " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void validateEntries(ZipFile zip, List<ZipEntry> entries, AtomicInteger next, ErrorHandler errorHandler) {
+        ValidatorBuilder.XmlValidator validator = pool.borrow(errorHandler, builder.getFailFastRun());
+        active.add(validator);
+        try {
+            int index;
+            while (!isCancelled() && (index = next.getAndIncrement()) < entries.size()) {
+                validator.validate(zip, entries.get(index));
+                if (validator.isCancelled()) {
+                    cancel();
+                }
+            }
+        } finally {
+            active.remove(validator);
+            pool.release(validator);
+        }
+    }
+
+    /**
+     * Stops handing out entries and interrupts the entries being validated at their next SAX callback.
+     */
+    public void cancel() {
+        cancelled.set(true);
+        for (ValidatorBuilder.XmlValidator validator : active) {
+            validator.cancel();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get() || builder.getFailFastRun().isTripped();
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+}
@@ -4,17 +4,22 @@ package com.github.and11;
 
 import org.xml.sax.SAXParseException;
 
+import java.util.Collection;
 import java.util.List;
 
 public class ErrorsSerializer {
     public String serialize(ValidationErrorHandler errorHandler){
         List<ValidationErrorHandler.ErrorRecord> errorRecords = errorHandler.getErrors();
-        if (!errorRecords.isEmpty()) {
+        Collection<ValidationErrorHandler.ErrorGroup> errorGroups = errorHandler.getErrorGroups();
+        if (!errorRecords.isEmpty() || !errorGroups.isEmpty()) {
             final StringBuffer message = new StringBuffer();
             for (ValidationErrorHandler.ErrorRecord error : errorRecords) {
                 appendMessage(message, error);
             }
-            if (errorHandler.getErrorCount() + errorHandler.getFatalCount() > 0) {
+            for (ValidationErrorHandler.ErrorGroup group : errorGroups) {
+                appendGroup(message, group);
+            }
+            if (errorHandler.getErrorCount() + errorHandler.getFatalCount() + errorHandler.getLimitCount() > 0) {
                 throw new RuntimeException(message.toString());
             } else {
                 System.out.println(message.toString());
@@ -25,12 +30,45 @@ public class ErrorsSerializer {
         return null;
     }
 
+    private void appendGroup(StringBuffer messageBuffer, ValidationErrorHandler.ErrorGroup group) {
+        String lineSep = System.getProperty("line.separator");
+        messageBuffer.append(group.getType().toString());
+        messageBuffer.append(" (");
+        messageBuffer.append(group.getCount());
+        messageBuffer.append(group.getCount() == 1 ? " occurrence" : " occurrences");
+        messageBuffer.append("): ");
+        messageBuffer.append(group.getCount() == 1 ? group.getExample() : group.getMessage());
+        messageBuffer.append(lineSep);
+        for (ValidationErrorHandler.ErrorLocation sample : group.getSamples()) {
+            String location = formatLocation(sample.getPublicId(), sample.getSystemId(),
+                    sample.getLineNumber(), sample.getColumnNumber());
+            messageBuffer.append("    at ");
+            messageBuffer.append("".equals(location) ? "unknown location" : location);
+            messageBuffer.append(lineSep);
+        }
+        int omitted = group.getCount() - group.getSamples().size();
+        if (omitted > 0) {
+            messageBuffer.append("    ... and ");
+            messageBuffer.append(omitted);
+            messageBuffer.append(" more");
+            messageBuffer.append(lineSep);
+        }
+    }
+
     private void appendMessage(StringBuffer messageBuffer, ValidationErrorHandler.ErrorRecord error) {
         SAXParseException e = error.getException();
-        final String publicId = e.getPublicId();
-        final String systemId = e.getSystemId();
-        final int lineNum = e.getLineNumber();
-        final int colNum = e.getColumnNumber();
+        final String location = formatLocation(e.getPublicId(), e.getSystemId(), e.getLineNumber(), e.getColumnNumber());
+
+        messageBuffer.append(("".equals(location) ? "" : ", at " + location));
+        messageBuffer.append(": ");
+        messageBuffer.append(error.getType().toString());
+        messageBuffer.append(": ");
+        messageBuffer.append(e.getMessage());
+        String lineSep = System.getProperty("line.separator");
+        messageBuffer.append(lineSep);
+    }
+
+    private String formatLocation(String publicId, String systemId, int lineNum, int colNum) {
         final String location;
         if (publicId == null && systemId == null && lineNum == -1 && colNum == -1) {
             location = "";
@@ -61,14 +99,7 @@ public class ErrorsSerializer {
             }
             location = loc.toString();
         }
-
-        messageBuffer.append(("".equals(location) ? "" : ", at " + location));
-        messageBuffer.append(": ");
-        messageBuffer.append(error.getType().toString());
-        messageBuffer.append(": ");
-        messageBuffer.append(e.getMessage());
-        String lineSep = System.getProperty("line.separator");
-        messageBuffer.append(lineSep);
+        return location;
     }
 
 }
@@ -0,0 +1,65 @@
+package com.github.and11;
+
+public class FailFastPolicy {
+
+    public enum Mode {
+        NEVER,
+        FIRST_FATAL,
+        FIRST_ERROR,
+        MAX_ERRORS
+    }
+
+    public static final FailFastPolicy NEVER = new FailFastPolicy(Mode.NEVER, 0);
+
+    private final Mode mode;
+    private final int maxErrors;
+
+    public FailFastPolicy(Mode mode, int maxErrors) {
+        if (mode == Mode.MAX_ERRORS && maxErrors <= 0) {
+            throw new IllegalArgumentException("maxErrors must be positive, got " + maxErrors);
+        }
+        this.mode = mode;
+        this.maxErrors = maxErrors;
+    }
+
+    public static FailFastPolicy firstFatal() {
+        return new FailFastPolicy(Mode.FIRST_FATAL, 0);
+    }
+
+    public static FailFastPolicy firstError() {
+        return new FailFastPolicy(Mode.FIRST_ERROR, 0);
+    }
+
+    public static FailFastPolicy maxErrors(int maxErrors) {
+        return new FailFastPolicy(Mode.MAX_ERRORS, maxErrors);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public int getMaxErrors() {
+        return maxErrors;
+    }
+
+    public boolean isTripped(int errorCount, int fatalCount) {
+        switch (mode) {
+            case FIRST_FATAL:
+                return fatalCount > 0;
+            case FIRST_ERROR:
+                return errorCount + fatalCount > 0;
+            case MAX_ERRORS:
+                return errorCount + fatalCount >= maxErrors;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FailFastPolicy{" +
+                "mode=" + mode +
+                ", maxErrors=" + maxErrors +
+                '}';
+    }
+}
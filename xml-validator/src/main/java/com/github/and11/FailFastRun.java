@@ -0,0 +1,59 @@
+package com.github.and11;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Error counts of one validation run, shared by every validator taking part in it so that a
+ * {@link FailFastPolicy} is applied to the run as a whole rather than to each validator or archive.
+ */
+public class FailFastRun {
+
+    private final AtomicInteger errorCount = new AtomicInteger();
+    private final AtomicInteger fatalCount = new AtomicInteger();
+    private final AtomicBoolean tripped = new AtomicBoolean();
+
+    /**
+     * Counts an error and tells whether the policy is now tripped.
+     */
+    boolean error(FailFastPolicy policy) {
+        errorCount.incrementAndGet();
+        return check(policy);
+    }
+
+    /**
+     * Counts a fatal error and tells whether the policy is now tripped.
+     */
+    boolean fatalError(FailFastPolicy policy) {
+        fatalCount.incrementAndGet();
+        return check(policy);
+    }
+
+    private boolean check(FailFastPolicy policy) {
+        if (policy.isTripped(errorCount.get(), fatalCount.get())) {
+            tripped.set(true);
+        }
+        return tripped.get();
+    }
+
+    public int getErrorCount() {
+        return errorCount.get();
+    }
+
+    public int getFatalCount() {
+        return fatalCount.get();
+    }
+
+    public boolean isTripped() {
+        return tripped.get();
+    }
+
+    @Override
+    public String toString() {
+        return "FailFastRun{" +
+                "errorCount=" + errorCount +
+                ", fatalCount=" + fatalCount +
+                ", tripped=" + tripped +
+                '}';
+    }
+}
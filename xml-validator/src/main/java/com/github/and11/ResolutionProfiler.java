@@ -0,0 +1,269 @@
+package com.github.and11;
+
+import org.w3c.dom.ls.LSInput;
+import org.xml.sax.InputSource;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Records every resource resolution as an edge from the including document to the resolved
+ * resource, and renders the resulting import/include graph as a plain-text report.
+ */
+public class ResolutionProfiler {
+
+    private static final int TOP_SCHEMAS = 10;
+
+    private final List<Edge> edges = Collections.synchronizedList(new ArrayList<>());
+
+    public static class Edge {
+        private final String type;
+        private final String namespaceURI;
+        private final String baseURI;
+        private final String systemId;
+        private final String resolved;
+        private final long resolveNanos;
+        private volatile long readNanos;
+        private volatile long parseNanos;
+        private volatile long bytes;
+
+        Edge(String type, String namespaceURI, String baseURI, String systemId, String resolved, long resolveNanos) {
+            this.type = type;
+            this.namespaceURI = namespaceURI;
+            this.baseURI = baseURI;
+            this.systemId = systemId;
+            this.resolved = resolved;
+            this.resolveNanos = resolveNanos;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getNamespaceURI() {
+            return namespaceURI;
+        }
+
+        public String getBaseURI() {
+            return baseURI;
+        }
+
+        public String getSystemId() {
+            return systemId;
+        }
+
+        public String getResolved() {
+            return resolved;
+        }
+
+        public boolean isResolved() {
+            return resolved != null;
+        }
+
+        public long getResolveNanos() {
+            return resolveNanos;
+        }
+
+        public long getReadNanos() {
+            return readNanos;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return time from handing the resource to the parser until it read the end of it or closed it,
+         * which covers parsing the document but not building a grammar from it; zero if the resource was
+         * not read through the profiler
+         */
+        public long getParseNanos() {
+            return parseNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Edge{" +
+                    "type=" + type +
+                    ", namespaceURI=" + namespaceURI +
+                    ", baseURI=" + baseURI +
+                    ", systemId=" + systemId +
+                    ", resolved=" + resolved +
+                    ", resolveNanos=" + resolveNanos +
+                    ", readNanos=" + readNanos +
+                    ", parseNanos=" + parseNanos +
+                    ", bytes=" + bytes +
+                    '}';
+        }
+    }
+
+    /**
+     * Measures the parser's reads; opens the resource on the first read when no stream was given,
+     * so a resource the parser never reads is never opened.
+     */
+    private static class MeasuringInputStream extends FilterInputStream {
+        private final String systemId;
+        private final Edge edge;
+        private final long opened = System.nanoTime();
+        private boolean done;
+
+        MeasuringInputStream(InputStream in, String systemId, Edge edge) {
+            super(in);
+            this.systemId = systemId;
+            this.edge = edge;
+        }
+
+        private void open() throws IOException {
+            if (in == null) {
+                in = new URL(systemId).openStream();
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            open();
+            int b = super.read();
+            edge.readNanos += System.nanoTime() - start;
+            if (b != -1) {
+                edge.bytes++;
+            } else {
+                parsed();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            open();
+            int n = super.read(b, off, len);
+            edge.readNanos += System.nanoTime() - start;
+            if (n > 0) {
+                edge.bytes += n;
+            } else if (n == -1) {
+                parsed();
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            open();
+            return super.skip(n);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return in == null ? 0 : super.available();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+        }
+
+        @Override
+        public synchronized void reset() throws IOException {
+            throw new IOException("mark/reset not supported");
+        }
+
+        @Override
+        public void close() throws IOException {
+            parsed();
+            if (in != null) {
+                super.close();
+            }
+        }
+
+        private void parsed() {
+            if (!done) {
+                done = true;
+                edge.parseNanos = System.nanoTime() - opened;
+            }
+        }
+    }
+
+    /**
+     * Records a resolution and, when it succeeded, returns an input whose byte stream is measured.
+     * A resource without a byte stream is opened from its system id when the parser first reads it.
+     */
+    public LSInput record(String type, String namespaceURI, String systemId, String baseURI, LSInput input, long resolveNanos) {
+        Edge edge = new Edge(type, namespaceURI, baseURI, systemId, input == null ? null : input.getSystemId(), resolveNanos);
+        edges.add(edge);
+
+        if (input == null || input.getSystemId() == null) {
+            return input;
+        }
+        InputSource source = new InputSource(input.getSystemId());
+        source.setByteStream(new MeasuringInputStream(input.getByteStream(), input.getSystemId(), edge));
+        return new LSInputImpl(input.getPublicId(), input.getSystemId(), source);
+    }
+
+    public List<Edge> getEdges() {
+        synchronized (edges) {
+            return new ArrayList<>(edges);
+        }
+    }
+
+    public String report() {
+        List<Edge> snapshot = getEdges();
+        String lineSep = System.getProperty("line.separator");
+        StringBuilder report = new StringBuilder();
+
+        report.append("schema resolution profile: ").append(snapshot.size()).append(" lookups").append(lineSep);
+
+        report.append(lineSep).append("import/include graph:").append(lineSep);
+        Map<String, List<Edge>> byBase = snapshot.stream()
+                .collect(Collectors.groupingBy(e -> String.valueOf(e.getBaseURI()), LinkedHashMap::new, Collectors.toList()));
+        for (Map.Entry<String, List<Edge>> entry : byBase.entrySet()) {
+            report.append("  ").append(entry.getKey()).append(" (fan-out ").append(entry.getValue().size()).append(")").append(lineSep);
+            for (Edge edge : entry.getValue()) {
+                report.append("    -> ").append(edge.isResolved() ? edge.getResolved() : "UNRESOLVED " + describe(edge))
+                        .append(lineSep);
+            }
+        }
+
+        report.append(lineSep).append("duplicate loads:").append(lineSep);
+        snapshot.stream().filter(Edge::isResolved)
+                .collect(Collectors.groupingBy(Edge::getResolved, LinkedHashMap::new, Collectors.counting()))
+                .entrySet().stream().filter(e -> e.getValue() > 1)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .forEach(e -> report.append("  ").append(e.getKey()).append(" x").append(e.getValue()).append(lineSep));
+
+        report.append(lineSep).append("unresolved lookups:").append(lineSep);
+        snapshot.stream().filter(e -> !e.isResolved())
+                .forEach(e -> report.append("  ").append(describe(e)).append(" from ").append(e.getBaseURI()).append(lineSep));
+
+        report.append(lineSep).append("most expensive schema documents (parse: from resolution until end of document,")
+                .append(" excluding grammar construction; read: I/O within parse):").append(lineSep);
+        Map<String, Long> readNanos = snapshot.stream().filter(Edge::isResolved)
+                .collect(Collectors.groupingBy(Edge::getResolved, Collectors.summingLong(Edge::getReadNanos)));
+        snapshot.stream().filter(Edge::isResolved)
+                .collect(Collectors.groupingBy(Edge::getResolved, Collectors.summingLong(Edge::getParseNanos)))
+                .entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(TOP_SCHEMAS)
+                .forEach(e -> report.append(String.format("  parse %.3f ms, read %.3f ms ", e.getValue() / 1e6,
+                        readNanos.get(e.getKey()) / 1e6)).append(e.getKey()).append(lineSep));
+
+        return report.toString();
+    }
+
+    private static String describe(Edge edge) {
+        return "namespace " + edge.getNamespaceURI() + ", systemId " + edge.getSystemId();
+    }
+}
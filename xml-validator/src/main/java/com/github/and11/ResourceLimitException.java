@@ -0,0 +1,24 @@
+package com.github.and11;
+
+import org.xml.sax.Locator;
+import org.xml.sax.SAXParseException;
+
+public class ResourceLimitException extends SAXParseException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ResourceLimitException(String message, Locator locator) {
+        super(message, locator);
+    }
+
+    public ResourceLimitException(String message, String systemId) {
+        super(message, null, systemId, -1, -1);
+    }
+
+    /**
+     * Reports a limit the parser enforced itself, at the location of its error.
+     */
+    public ResourceLimitException(String message, SAXParseException cause) {
+        super(message, cause.getPublicId(), cause.getSystemId(), cause.getLineNumber(), cause.getColumnNumber(), cause);
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.and11;
+
+/**
+ * Per-file limits applied while validating. A value of zero or less disables the corresponding limit.
+ */
+public class ResourceLimits {
+
+    private long maxFileSize;
+    private int maxDepth;
+    private int maxEntityExpansions;
+    private long timeBudgetMillis;
+
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    public ResourceLimits setMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+        return this;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public ResourceLimits setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    public int getMaxEntityExpansions() {
+        return maxEntityExpansions;
+    }
+
+    public ResourceLimits setMaxEntityExpansions(int maxEntityExpansions) {
+        this.maxEntityExpansions = maxEntityExpansions;
+        return this;
+    }
+
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    public ResourceLimits setTimeBudgetMillis(long timeBudgetMillis) {
+        this.timeBudgetMillis = timeBudgetMillis;
+        return this;
+    }
+
+    public boolean isUnlimited() {
+        return maxFileSize <= 0 && maxDepth <= 0 && maxEntityExpansions <= 0 && timeBudgetMillis <= 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceLimits{" +
+                "maxFileSize=" + maxFileSize +
+                ", maxDepth=" + maxDepth +
+                ", maxEntityExpansions=" + maxEntityExpansions +
+                ", timeBudgetMillis=" + timeBudgetMillis +
+                '}';
+    }
+}
@@ -15,15 +15,28 @@ import javax.xml.parsers.SAXParserFactory;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.sax.SAXSource;
 import java.io.IOException;
+import java.net.URI;
 
 public class ResourcesResolver implements LSResourceResolver, EntityResolver {
 
     public static final Logger logger = LoggerFactory.getLogger(ResourcesResolver.class);
 
     private final CatalogResolver res;
+    private final SchemaSnapshot snapshot;
+    private ResolutionProfiler profiler;
 
     public ResourcesResolver(CatalogResolver res) {
         this.res = res;
+        this.snapshot = null;
+    }
+
+    public ResourcesResolver(SchemaSnapshot snapshot) {
+        this.res = null;
+        this.snapshot = snapshot;
+    }
+
+    public void setProfiler(ResolutionProfiler profiler) {
+        this.profiler = profiler;
     }
 
     private void setEntityResolver(SAXSource source) throws TransformerException {
@@ -46,6 +59,9 @@ public class ResourcesResolver implements LSResourceResolver, EntityResolver {
     private LSInput newLSInput(String publicId, String systemId, String resource) {
         SAXSource source = new SAXSource();
         source.setInputSource(new InputSource(resource));
+        if (snapshot != null) {
+            source.getInputSource().setByteStream(snapshot.open(resource));
+        }
         try {
             setEntityResolver(source);
         } catch (TransformerException e) {
@@ -58,16 +74,27 @@ public class ResourcesResolver implements LSResourceResolver, EntityResolver {
 
     @Override
     public LSInput resolveResource(String type, String namespaceURI, String publicId, String systemId, String baseURI) {
+        if (profiler == null) {
+            return resolve(type, namespaceURI, publicId, systemId, baseURI);
+        }
+        long start = System.nanoTime();
+        LSInput input = resolve(type, namespaceURI, publicId, systemId, baseURI);
+        return profiler.record(type, namespaceURI, systemId, baseURI, input, System.nanoTime() - start);
+    }
 
-        logger.debug("resolveResource type: {}, namespaceURI: {}, publicId: {}, systemId: {}, baseURI: {}",
-                type, namespaceURI, publicId, systemId, baseURI);
+    private LSInput resolve(String type, String namespaceURI, String publicId, String systemId, String baseURI) {
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("resolveResource type: {}, namespaceURI: {}, publicId: {}, systemId: {}, baseURI: {}",
+                    type, namespaceURI, publicId, systemId, baseURI);
+        }
 
         String resolved = null;
 
         if (systemId != null) {
             try {
                 logger.debug("resolving by systemId: {}", systemId);
-                resolved = res.getCatalog().resolveSystem(systemId);
+                resolved = resolveSystem(systemId);
                 if (resolved != null) {
                     logger.debug("successfully resolved by systemId as {}", resolved);
                     return newLSInput(publicId, resolved, resolved);
@@ -80,9 +107,22 @@ public class ResourcesResolver implements LSResourceResolver, EntityResolver {
             }
         }
 
+        if (publicId != null) {
+            try {
+                logger.debug("resolving by publicId: {}", publicId);
+                resolved = resolvePublic(publicId, systemId);
+                if (resolved != null) {
+                    logger.debug("successfully resolved by publicId as {}", resolved);
+                    return newLSInput(publicId, resolved, resolved);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
         logger.debug("resolving by uri: {}", namespaceURI);
         try {
-            resolved = res.getCatalog().resolveURI(namespaceURI);
+            resolved = resolveURI(namespaceURI);
             if (resolved != null) {
                 logger.debug("successfully resolved by URI as {}", resolved);
                 return newLSInput(publicId, resolved, resolved);
@@ -91,12 +131,54 @@ public class ResourcesResolver implements LSResourceResolver, EntityResolver {
             throw new RuntimeException(e);
         }
 
+        if (snapshot != null && systemId != null && baseURI != null) {
+            resolved = URI.create(baseURI).resolve(systemId).toString();
+            if (snapshot.contains(resolved)) {
+                logger.debug("resolved relative to {} from snapshot as {}", baseURI, resolved);
+                return newLSInput(publicId, resolved, resolved);
+            }
+        }
+
         logger.error("resolution failed");
         return null;
     }
 
+    private String resolveSystem(String systemId) throws IOException {
+        if (snapshot != null) {
+            return snapshot.resolveSystem(systemId);
+        }
+        return res.getCatalog().resolveSystem(systemId);
+    }
+
+    private String resolvePublic(String publicId, String systemId) throws IOException {
+        if (snapshot != null) {
+            return snapshot.resolvePublic(publicId, systemId != null);
+        }
+        return res.getCatalog().resolvePublic(publicId, systemId);
+    }
+
+    private String resolveURI(String uri) throws IOException {
+        if (snapshot != null) {
+            return uri == null ? null : snapshot.resolveURI(uri);
+        }
+        return res.getCatalog().resolveURI(uri);
+    }
+
     @Override
     public InputSource resolveEntity(String publicId, String systemId) throws SAXException, IOException {
+        if (snapshot != null) {
+            String resolved = systemId == null ? null : snapshot.resolveSystem(systemId);
+            if (resolved == null && publicId != null) {
+                resolved = resolvePublic(publicId, systemId);
+            }
+            if (resolved == null) {
+                return null;
+            }
+            InputSource source = new InputSource(resolved);
+            source.setPublicId(publicId);
+            source.setByteStream(snapshot.open(resolved));
+            return source;
+        }
         return res.resolveEntity(publicId, systemId);
     }
 }
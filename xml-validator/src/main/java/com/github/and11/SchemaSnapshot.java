@@ -0,0 +1,404 @@
+package com.github.and11;
+
+import org.apache.xml.resolver.helpers.PublicId;
+import org.apache.xml.resolver.tools.CatalogResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXParseException;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.SchemaFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The resolved schema closure of a set of catalogs in one file: the catalog's {@code system}, {@code uri} and
+ * {@code public} mappings plus the bytes of every resource they lead to, including imports and includes found
+ * by loading the schemas. Loading a snapshot memory-maps the file instead of parsing catalogs and opening each
+ * schema. Catalogs with rewrite, suffix, delegate or nextCatalog entries cannot be captured this way.
+ */
+public class SchemaSnapshot {
+
+    public static final Logger logger = LoggerFactory.getLogger(SchemaSnapshot.class);
+
+    private static final int MAGIC = 0x58534442;
+    private static final int VERSION = 3;
+    private static final String CATALOG_NS = "urn:oasis:names:tc:entity:xmlns:xml:catalog";
+    private static final Set<String> UNSUPPORTED_ENTRIES = new HashSet<>(Arrays.asList(
+            "rewriteSystem", "rewriteURI", "systemSuffix", "uriSuffix",
+            "delegatePublic", "delegateSystem", "delegateURI", "nextCatalog"));
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    private static class IgnoringErrorHandler implements ErrorHandler {
+        @Override
+        public void warning(SAXParseException exception) {
+        }
+
+        @Override
+        public void error(SAXParseException exception) {
+        }
+
+        @Override
+        public void fatalError(SAXParseException exception) {
+        }
+    }
+
+    private final String fingerprint;
+    private final Map<String, String> systemIds;
+    private final Map<String, String> uris;
+    private final Map<String, String> publicIds;
+    private final Map<String, String> systemPreferredPublicIds;
+    private final Map<String, ByteBuffer> resources;
+
+    private SchemaSnapshot(String fingerprint, Map<String, String> systemIds, Map<String, String> uris,
+                           Map<String, String> publicIds, Map<String, String> systemPreferredPublicIds,
+                           Map<String, ByteBuffer> resources) {
+        this.fingerprint = fingerprint;
+        this.systemIds = systemIds;
+        this.uris = uris;
+        this.publicIds = publicIds;
+        this.systemPreferredPublicIds = systemPreferredPublicIds;
+        this.resources = resources;
+    }
+
+    /**
+     * @return the fingerprint of the schema sources the snapshot was created from, empty if none was given
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public String resolveSystem(String systemId) {
+        return systemIds.get(systemId);
+    }
+
+    public String resolveURI(String uri) {
+        return uris.get(uri);
+    }
+
+    /**
+     * Resolves a public identifier the way the catalog does with {@code prefer="public"} as default: entries
+     * under {@code prefer="system"} only apply when the entity has no system identifier.
+     */
+    public String resolvePublic(String publicId, boolean hasSystemId) {
+        String normalized = PublicId.normalize(publicId);
+        String resolved = publicIds.get(normalized);
+        if (resolved == null && !hasSystemId) {
+            resolved = systemPreferredPublicIds.get(normalized);
+        }
+        return resolved;
+    }
+
+    public boolean contains(String id) {
+        return resources.containsKey(id);
+    }
+
+    /**
+     * @return the content of a resource of the closure, or {@code null} if it is not part of it
+     */
+    public InputStream open(String id) {
+        ByteBuffer resource = resources.get(id);
+        return resource == null ? null : new ByteBufferInputStream(resource.duplicate());
+    }
+
+    public int size() {
+        return resources.size();
+    }
+
+    public static SchemaSnapshot create(List<Path> catalogs) throws Exception {
+        return create(catalogs, "");
+    }
+
+    /**
+     * Resolves every {@code system}, {@code uri} and {@code public} entry of the catalogs and loads the resulting
+     * schemas to collect their imports and includes. {@code fingerprint} identifies the schema sources (for
+     * example the coordinates of the artifacts the catalogs were unpacked from) and is stored in the header.
+     *
+     * @throws IllegalArgumentException if a catalog has entries that only resolve against the catalog itself
+     */
+    public static SchemaSnapshot create(List<Path> catalogs, String fingerprint) throws Exception {
+        CatalogResolver catalogResolver = ValidatorBuilder.createResolver(catalogs);
+        Map<String, String> systemIds = new LinkedHashMap<>();
+        Map<String, String> uris = new LinkedHashMap<>();
+        Map<String, String> publicIds = new LinkedHashMap<>();
+        Map<String, String> systemPreferredPublicIds = new LinkedHashMap<>();
+        for (Path catalog : catalogs) {
+            readCatalogEntries(catalog, catalogResolver, systemIds, uris, publicIds, systemPreferredPublicIds);
+        }
+
+        ResolutionProfiler profiler = new ResolutionProfiler();
+        ResourcesResolver resourcesResolver = new ResourcesResolver(catalogResolver);
+        resourcesResolver.setProfiler(profiler);
+
+        List<String> entryPoints = new ArrayList<>(systemIds.values());
+        entryPoints.addAll(uris.values());
+        entryPoints.addAll(publicIds.values());
+        entryPoints.addAll(systemPreferredPublicIds.values());
+
+        Map<String, ByteBuffer> resources = new LinkedHashMap<>();
+        for (String resolved : entryPoints) {
+            if (addResource(resources, resolved)) {
+                SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+                schemaFactory.setResourceResolver(resourcesResolver);
+                schemaFactory.setErrorHandler(new IgnoringErrorHandler());
+                try {
+                    schemaFactory.newSchema(new StreamSource(resolved));
+                } catch (Exception e) {
+                    logger.debug("{} is not a loadable schema: {}", resolved, e.getMessage());
+                }
+            }
+        }
+
+        for (ResolutionProfiler.Edge edge : profiler.getEdges()) {
+            if (edge.isResolved()) {
+                addResource(resources, edge.getResolved());
+            } else if (edge.getSystemId() != null && edge.getBaseURI() != null) {
+                addResource(resources, URI.create(edge.getBaseURI()).resolve(edge.getSystemId()).toString());
+            }
+        }
+
+        logger.info("schema snapshot: {} system ids, {} uris, {} public ids, {} resources", systemIds.size(), uris.size(),
+                publicIds.size() + systemPreferredPublicIds.size(), resources.size());
+        return new SchemaSnapshot(fingerprint, systemIds, uris, publicIds, systemPreferredPublicIds, resources);
+    }
+
+    private static void readCatalogEntries(Path catalog, CatalogResolver catalogResolver,
+                                           Map<String, String> systemIds, Map<String, String> uris,
+                                           Map<String, String> publicIds,
+                                           Map<String, String> systemPreferredPublicIds) throws Exception {
+        try (InputStream is = Files.newInputStream(catalog)) {
+            XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(is);
+            Deque<Boolean> preferPublic = new ArrayDeque<>();
+            preferPublic.push(true);
+            try {
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if ((event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT)
+                            || !CATALOG_NS.equals(reader.getNamespaceURI())) {
+                        continue;
+                    }
+                    String name = reader.getLocalName();
+                    boolean scope = "catalog".equals(name) || "group".equals(name);
+                    if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (scope) {
+                            preferPublic.pop();
+                        }
+                        continue;
+                    }
+                    if (scope) {
+                        String prefer = reader.getAttributeValue(null, "prefer");
+                        preferPublic.push(prefer == null ? preferPublic.peek() : "public".equals(prefer));
+                    } else if (UNSUPPORTED_ENTRIES.contains(name)) {
+                        throw new IllegalArgumentException("catalog " + catalog + " has " + name
+                                + " entries, which a schema snapshot cannot resolve");
+                    } else if ("system".equals(name)) {
+                        String systemId = reader.getAttributeValue(null, "systemId");
+                        putResolved(systemIds, systemId, catalogResolver.getCatalog().resolveSystem(systemId));
+                    } else if ("uri".equals(name)) {
+                        String uri = reader.getAttributeValue(null, "name");
+                        putResolved(uris, uri, catalogResolver.getCatalog().resolveURI(uri));
+                    } else if ("public".equals(name)) {
+                        String publicId = reader.getAttributeValue(null, "publicId");
+                        if (publicId != null) {
+                            publicId = PublicId.normalize(publicId);
+                            putResolved(preferPublic.peek() ? publicIds : systemPreferredPublicIds, publicId,
+                                    catalogResolver.getCatalog().resolvePublic(publicId, null));
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    private static void putResolved(Map<String, String> entries, String key, String resolved) {
+        if (key != null && resolved != null) {
+            entries.put(key, resolved);
+        }
+    }
+
+    private static boolean addResource(Map<String, ByteBuffer> resources, String id) {
+        if (resources.containsKey(id)) {
+            return false;
+        }
+        try (InputStream is = new URL(id).openStream()) {
+            ByteBuffer content = ByteBuffer.wrap(readAll(is));
+            resources.put(id, content);
+            return true;
+        } catch (IOException e) {
+            logger.warn("cannot read {}: {}", id, e.getMessage());
+            return false;
+        }
+    }
+
+    private static byte[] readAll(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int n;
+        while ((n = is.read(chunk)) != -1) {
+            out.write(chunk, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Layout: magic, version, fingerprint, the system, uri and public maps, a resource index of (id, length) pairs, then the
+     * concatenated resource bytes.
+     */
+    public void write(Path file) throws IOException {
+        try (OutputStream os = Files.newOutputStream(file);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(fingerprint);
+            writeMap(out, systemIds);
+            writeMap(out, uris);
+            writeMap(out, publicIds);
+            writeMap(out, systemPreferredPublicIds);
+            out.writeInt(resources.size());
+            for (Map.Entry<String, ByteBuffer> resource : resources.entrySet()) {
+                out.writeUTF(resource.getKey());
+                out.writeInt(resource.getValue().remaining());
+            }
+            byte[] chunk = new byte[8192];
+            for (ByteBuffer resource : resources.values()) {
+                ByteBuffer content = resource.duplicate();
+                while (content.hasRemaining()) {
+                    int n = Math.min(chunk.length, content.remaining());
+                    content.get(chunk, 0, n);
+                    out.write(chunk, 0, n);
+                }
+            }
+        }
+    }
+
+    public static SchemaSnapshot load(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        DataInputStream in = new DataInputStream(new ByteBufferInputStream(buffer));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException(file + " is not a schema snapshot of version " + VERSION);
+        }
+        String fingerprint = in.readUTF();
+        Map<String, String> systemIds = readMap(in);
+        Map<String, String> uris = readMap(in);
+        Map<String, String> publicIds = readMap(in);
+        Map<String, String> systemPreferredPublicIds = readMap(in);
+
+        int count = in.readInt();
+        String[] ids = new String[count];
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = in.readUTF();
+            lengths[i] = in.readInt();
+        }
+
+        Map<String, ByteBuffer> resources = new HashMap<>();
+        int offset = buffer.position();
+        for (int i = 0; i < count; i++) {
+            ByteBuffer resource = buffer.duplicate();
+            resource.position(offset);
+            resource.limit(offset + lengths[i]);
+            resources.put(ids[i], resource.slice());
+            offset += lengths[i];
+        }
+        logger.info("loaded schema snapshot {} with {} resources", file, count);
+        return new SchemaSnapshot(fingerprint, systemIds, uris, publicIds, systemPreferredPublicIds, resources);
+    }
+
+    /**
+     * Reads only the header of {@code file}.
+     *
+     * @return the fingerprint stored in the snapshot, or {@code null} if the file is missing or not a
+     * snapshot of the current version
+     */
+    public static String readFingerprint(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            return in.readUTF();
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static void writeMap(DataOutputStream out, Map<String, String> map) throws IOException {
+        out.writeInt(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readMap(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        Map<String, String> map = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            map.put(in.readUTF(), in.readUTF());
+        }
+        return map;
+    }
+}
@@ -0,0 +1,12 @@
+package com.github.and11;
+
+import org.xml.sax.SAXException;
+
+public class ValidationCancelledException extends SAXException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ValidationCancelledException(String message) {
+        super(message);
+    }
+}
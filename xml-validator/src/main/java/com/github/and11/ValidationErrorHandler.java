@@ -21,15 +21,48 @@ import org.xml.sax.SAXParseException;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class ValidationErrorHandler implements ErrorHandler {
+    private static final Pattern QUOTED = Pattern.compile("'[^']*'|\"[^\"]*\"");
+    private static final Pattern COMPONENT = Pattern.compile("^([\\w.-]+): ");
+    /**
+     * Positions, in order of appearance, of the quoted arguments that hold instance values in the messages
+     * of each constraint; element, attribute and type names are kept.
+     */
+    private static final Map<String, int[]> VALUE_ARGUMENTS = new HashMap<String, int[]>();
+
+    static {
+        for (String code : new String[]{"cvc-datatype-valid.1.2.1", "cvc-datatype-valid.1.2.2",
+                "cvc-datatype-valid.1.2.3", "cvc-type.3.1.3", "cvc-attribute.3", "cvc-complex-type.3.1",
+                "cvc-elt.5.2.2.2.1", "cvc-elt.5.2.2.2.2", "cvc-enumeration-valid", "cvc-pattern-valid",
+                "cvc-minInclusive-valid", "cvc-maxInclusive-valid", "cvc-minExclusive-valid",
+                "cvc-maxExclusive-valid", "cvc-totalDigits-valid", "cvc-fractionDigits-valid",
+                "cvc-id.1", "cvc-id.2"}) {
+            VALUE_ARGUMENTS.put(code, new int[]{0});
+        }
+        for (String code : new String[]{"cvc-length-valid", "cvc-minLength-valid", "cvc-maxLength-valid"}) {
+            VALUE_ARGUMENTS.put(code, new int[]{0, 1});
+        }
+    }
+
     private final List<ErrorRecord> errors = new ArrayList<ErrorRecord>();
     private final List<ErrorRecord> publicErrors = Collections.unmodifiableList(errors);
+    private final Map<String, ErrorGroup> groups = new LinkedHashMap<String, ErrorGroup>();
+    private final Collection<ErrorGroup> publicGroups = Collections.unmodifiableCollection(groups.values());
+    private final Map<String, String> strings = new HashMap<String, String>();
+    private int maxSamples = -1;
     private int warningCount = 0;
     private int errorCount = 0;
     private int fatalCount = 0;
+    private int limitCount = 0;
     private File context;
 
     @Override
@@ -40,32 +73,111 @@ public class ValidationErrorHandler implements ErrorHandler {
                 ", warningCount=" + warningCount +
                 ", errorCount=" + errorCount +
                 ", fatalCount=" + fatalCount +
+                ", limitCount=" + limitCount +
+                ", groups=" + groups.values() +
                 ", context=" + context +
                 '}';
     }
 
+    public ValidationErrorHandler() {
+    }
+
+    /**
+     * Creates a handler that groups errors by type and normalized message instead of keeping every record,
+     * keeping at most {@code maxSamples} locations per group.
+     */
+    public ValidationErrorHandler(int maxSamples) {
+        if (maxSamples < 0) {
+            throw new IllegalArgumentException("maxSamples must not be negative, got " + maxSamples);
+        }
+        this.maxSamples = maxSamples;
+    }
+
     @Override
     public void warning(SAXParseException exception) throws SAXException {
         warningCount++;
-        errors.add(new ErrorRecord(ErrorType.WARNING, exception, context));
+        record(ErrorType.WARNING, exception);
     }
 
     @Override
     public void error(SAXParseException exception) throws SAXException {
         errorCount++;
-        errors.add(new ErrorRecord(ErrorType.ERROR, exception, context));
+        record(ErrorType.ERROR, exception);
     }
 
     @Override
     public void fatalError(SAXParseException exception) throws SAXException {
+        if (exception instanceof ResourceLimitException) {
+            limitCount++;
+            record(ErrorType.LIMIT, exception);
+            return;
+        }
         fatalCount++;
-        errors.add(new ErrorRecord(ErrorType.FATAL, exception, context));
+        record(ErrorType.FATAL, exception);
+    }
+
+    private void record(ErrorType type, SAXParseException exception) {
+        if (!isAggregating()) {
+            errors.add(new ErrorRecord(type, exception, context));
+            return;
+        }
+
+        String message = String.valueOf(exception.getMessage());
+        Matcher component = COMPONENT.matcher(message);
+        String code = component.find() ? component.group(1) : null;
+        String normalized = normalize(code, message);
+        String key = type.name() + '|' + normalized;
+        ErrorGroup group = groups.get(key);
+        if (group == null) {
+            group = new ErrorGroup(type, intern(normalized), intern(code), intern(message));
+            groups.put(key, group);
+        }
+        group.add(exception, context);
+    }
+
+    /**
+     * Replaces the quoted instance values of messages of known constraints by {@code '*'}; other messages are
+     * kept as they are.
+     */
+    static String normalize(String code, String message) {
+        int[] values = code == null ? null : VALUE_ARGUMENTS.get(code);
+        if (values == null) {
+            return message;
+        }
+        StringBuffer normalized = new StringBuffer(message.length());
+        Matcher quoted = QUOTED.matcher(message);
+        int position = 0;
+        int next = 0;
+        while (next < values.length && quoted.find()) {
+            if (position++ == values[next]) {
+                quoted.appendReplacement(normalized, "'*'");
+                next++;
+            }
+        }
+        quoted.appendTail(normalized);
+        return normalized.toString();
+    }
+
+    private String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String interned = strings.putIfAbsent(value, value);
+        return interned == null ? value : interned;
+    }
+
+    public boolean isAggregating() {
+        return maxSamples >= 0;
     }
 
     public List<ErrorRecord> getErrors() {
         return publicErrors;
     }
 
+    public Collection<ErrorGroup> getErrorGroups() {
+        return publicGroups;
+    }
+
     public int getWarningCount() {
         return warningCount;
     }
@@ -78,6 +190,10 @@ public class ValidationErrorHandler implements ErrorHandler {
         return fatalCount;
     }
 
+    public int getLimitCount() {
+        return limitCount;
+    }
+
     public void setContext(File context) {
         this.context = context;
     }
@@ -103,6 +219,128 @@ public class ValidationErrorHandler implements ErrorHandler {
                 return "fatal error";
             }
 
+        },
+        LIMIT {
+            @Override
+            public String toString() {
+                return "resource limit exceeded";
+            }
+
+        }
+    }
+
+    public class ErrorGroup {
+        final ErrorType type;
+        final String message;
+        final String component;
+        final String example;
+        final List<ErrorLocation> samples = new ArrayList<ErrorLocation>();
+        int count;
+
+        ErrorGroup(ErrorType type, String message, String component, String example) {
+            this.type = type;
+            this.message = message;
+            this.component = component;
+            this.example = example;
+        }
+
+        void add(SAXParseException exception, File context) {
+            count++;
+            if (samples.size() < maxSamples) {
+                samples.add(new ErrorLocation(intern(exception.getPublicId()), intern(exception.getSystemId()),
+                        exception.getLineNumber(), exception.getColumnNumber(), context));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "ErrorGroup{" +
+                    "type=" + type +
+                    ", message=" + message +
+                    ", component=" + component +
+                    ", count=" + count +
+                    ", samples=" + samples +
+                    '}';
+        }
+
+        public ErrorType getType() {
+            return type;
+        }
+
+        /**
+         * @return the message with quoted instance values replaced by {@code '*'}
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * @return the constraint the message refers to, e.g. {@code cvc-complex-type.2.4.a}, if any
+         */
+        public String getComponent() {
+            return component;
+        }
+
+        /**
+         * @return the original message of the first error in the group
+         */
+        public String getExample() {
+            return example;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public List<ErrorLocation> getSamples() {
+            return Collections.unmodifiableList(samples);
+        }
+    }
+
+    public class ErrorLocation {
+        final String publicId;
+        final String systemId;
+        final int lineNumber;
+        final int columnNumber;
+        final File context;
+
+        ErrorLocation(String publicId, String systemId, int lineNumber, int columnNumber, File context) {
+            this.publicId = publicId;
+            this.systemId = systemId;
+            this.lineNumber = lineNumber;
+            this.columnNumber = columnNumber;
+            this.context = context;
+        }
+
+        @Override
+        public String toString() {
+            return "ErrorLocation{" +
+                    "publicId=" + publicId +
+                    ", systemId=" + systemId +
+                    ", lineNumber=" + lineNumber +
+                    ", columnNumber=" + columnNumber +
+                    ", context=" + context +
+                    '}';
+        }
+
+        public String getPublicId() {
+            return publicId;
+        }
+
+        public String getSystemId() {
+            return systemId;
+        }
+
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        public int getColumnNumber() {
+            return columnNumber;
+        }
+
+        public File getContext() {
+            return context;
         }
     }
 
@@ -138,6 +376,10 @@ public class ValidationErrorHandler implements ErrorHandler {
             return type == ErrorType.ERROR;
         }
 
+        public boolean isLimitExceeded() {
+            return type == ErrorType.LIMIT;
+        }
+
         public ErrorType getType() {
             return type;
         }
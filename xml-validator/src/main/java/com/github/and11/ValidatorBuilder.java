@@ -1,20 +1,34 @@
 package com.github.and11;
 
+import org.apache.xerces.impl.msg.XMLMessageFormatter;
+import org.apache.xerces.util.SecurityManager;
 import org.apache.xml.resolver.CatalogManager;
 import org.apache.xml.resolver.tools.CatalogResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.w3c.dom.ls.LSResourceResolver;
+import org.xml.sax.Attributes;
+import org.xml.sax.EntityResolver;
 import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
 import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.XMLFilterImpl;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
+import javax.xml.parsers.SAXParserFactory;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.events.StartElement;
 import javax.xml.stream.events.XMLEvent;
-import javax.xml.transform.stream.StreamSource;
+import javax.xml.transform.sax.SAXSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
@@ -25,7 +39,13 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 public class ValidatorBuilder {
 
@@ -54,33 +74,531 @@ public class ValidatorBuilder {
         return new ValidationErrorHandler();
     }
 
+    public ValidationErrorHandler createAggregatingErrorHandler(int maxSamples) {
+        return new ValidationErrorHandler(maxSamples);
+    }
+
+    private static class FailFastErrorHandler implements ErrorHandler {
+        private final ErrorHandler delegate;
+        private final FailFastPolicy policy;
+        private final FailFastRun run;
+
+        FailFastErrorHandler(ErrorHandler delegate, FailFastPolicy policy, FailFastRun run) {
+            this.delegate = delegate;
+            this.policy = policy;
+            this.run = run;
+        }
+
+        @Override
+        public void warning(SAXParseException exception) throws SAXException {
+            delegate.warning(exception);
+        }
+
+        @Override
+        public void error(SAXParseException exception) throws SAXException {
+            delegate.error(exception);
+            if (run.error(policy)) {
+                throw tripped();
+            }
+        }
+
+        @Override
+        public void fatalError(SAXParseException exception) throws SAXException {
+            delegate.fatalError(exception);
+            if (run.fatalError(policy)) {
+                throw tripped();
+            }
+        }
+
+        private ValidationCancelledException tripped() {
+            return new ValidationCancelledException("fail-fast policy " + policy.getMode() + " tripped");
+        }
+    }
+
+    /**
+     * Remembers that the parser reported a fatal error, so that {@link XmlValidator} does not report it again
+     * when the parser throws it afterwards.
+     */
+    private static class FatalErrorTracker implements ErrorHandler {
+        private final ErrorHandler delegate;
+        private boolean fatalReported;
+
+        FatalErrorTracker(ErrorHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void warning(SAXParseException exception) throws SAXException {
+            delegate.warning(exception);
+        }
+
+        @Override
+        public void error(SAXParseException exception) throws SAXException {
+            delegate.error(exception);
+        }
+
+        @Override
+        public void fatalError(SAXParseException exception) throws SAXException {
+            fatalReported = true;
+            delegate.fatalError(exception);
+        }
+    }
+
+    /**
+     * Sits between the SAX parser and the validator. Stops the parse at the next callback once the
+     * validation has been cancelled and enforces the per-file {@link ResourceLimits}.
+     */
+    private static class GuardingFilter extends XMLFilterImpl implements LexicalHandler {
+        private static final String LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+        private static final String SECURITY_MANAGER = "http://apache.org/xml/properties/security-manager";
+        private static final String ENTITY_EXPANSION_LIMIT_EXCEEDED = "EntityExpansionLimitExceeded";
+
+        private final BooleanSupplier cancelled;
+        private final ResourceLimits limits;
+        private final int parserExpansionLimit;
+        private LexicalHandler lexicalHandler;
+        private Locator locator;
+        private int depth;
+        private int entityExpansions;
+        private long deadline;
+
+        GuardingFilter(XMLReader parent, BooleanSupplier cancelled, ResourceLimits limits) throws SAXException {
+            super(parent);
+            this.cancelled = cancelled;
+            this.limits = limits;
+            parent.setProperty(LEXICAL_HANDLER, this);
+            // backstop for expansions the parser does not report through LexicalHandler (e.g. in attribute values);
+            // the parser only fails once it is more than one expansion past its limit
+            this.parserExpansionLimit = limits.getMaxEntityExpansions() - 1;
+            if (limits.getMaxEntityExpansions() > 0) {
+                SecurityManager securityManager = new SecurityManager();
+                securityManager.setEntityExpansionLimit(parserExpansionLimit);
+                parent.setProperty(SECURITY_MANAGER, securityManager);
+            }
+        }
+
+        void reset() {
+            resetDocumentState();
+            deadline = limits.getTimeBudgetMillis() > 0
+                    ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(limits.getTimeBudgetMillis())
+                    : 0;
+        }
+
+        /**
+         * Prepares for another parse of the same file, keeping the time budget running.
+         */
+        void resetDocumentState() {
+            depth = 0;
+            entityExpansions = 0;
+            locator = null;
+        }
+
+        private void check() throws SAXException {
+            if (cancelled.getAsBoolean()) {
+                throw new ValidationCancelledException("validation cancelled");
+            }
+            if (deadline != 0 && System.nanoTime() - deadline > 0) {
+                throw new ResourceLimitException("time budget of " + limits.getTimeBudgetMillis() + " ms exceeded", locator);
+            }
+        }
+
+        @Override
+        public void setProperty(String name, Object value) throws SAXNotRecognizedException, SAXNotSupportedException {
+            if (LEXICAL_HANDLER.equals(name)) {
+                lexicalHandler = (LexicalHandler) value;
+            } else {
+                super.setProperty(name, value);
+            }
+        }
+
+        @Override
+        public Object getProperty(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+            if (LEXICAL_HANDLER.equals(name)) {
+                return lexicalHandler;
+            }
+            return super.getProperty(name);
+        }
+
+        @Override
+        public void setDocumentLocator(Locator locator) {
+            this.locator = locator;
+            super.setDocumentLocator(locator);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+            check();
+            if (++depth > limits.getMaxDepth() && limits.getMaxDepth() > 0) {
+                throw new ResourceLimitException("element depth exceeds " + limits.getMaxDepth(), locator);
+            }
+            super.startElement(uri, localName, qName, atts);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            check();
+            depth--;
+            super.endElement(uri, localName, qName);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            check();
+            super.characters(ch, start, length);
+        }
+
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+            check();
+            super.ignorableWhitespace(ch, start, length);
+        }
+
+        @Override
+        public void processingInstruction(String target, String data) throws SAXException {
+            check();
+            super.processingInstruction(target, data);
+        }
+
+        /**
+         * Reports the parser's own entity expansion limit, which backs up {@link #startEntity(String)} for
+         * expansions in attribute values, as the configured resource limit instead of a fatal error.
+         */
+        @Override
+        public void fatalError(SAXParseException e) throws SAXException {
+            if (isEntityExpansionLimit(e)) {
+                throw new ResourceLimitException("more than " + limits.getMaxEntityExpansions() + " entity expansions", e);
+            }
+            super.fatalError(e);
+        }
+
+        private boolean isEntityExpansionLimit(SAXParseException e) {
+            if (limits.getMaxEntityExpansions() <= 0 || e instanceof ResourceLimitException || e.getMessage() == null) {
+                return false;
+            }
+            // the parser reports the limit set on its security manager; format its message for that limit the
+            // way the parser does, in the parser's default locale
+            String expected = new XMLMessageFormatter().formatMessage(Locale.getDefault(), ENTITY_EXPANSION_LIMIT_EXCEEDED,
+                    new Object[]{parserExpansionLimit});
+            return e.getMessage().equals(expected);
+        }
+
+        @Override
+        public void startDTD(String name, String publicId, String systemId) throws SAXException {
+            if (lexicalHandler != null) {
+                lexicalHandler.startDTD(name, publicId, systemId);
+            }
+        }
+
+        @Override
+        public void endDTD() throws SAXException {
+            if (lexicalHandler != null) {
+                lexicalHandler.endDTD();
+            }
+        }
+
+        @Override
+        public void startEntity(String name) throws SAXException {
+            check();
+            if (!"[dtd]".equals(name) && ++entityExpansions > limits.getMaxEntityExpansions()
+                    && limits.getMaxEntityExpansions() > 0) {
+                throw new ResourceLimitException("more than " + limits.getMaxEntityExpansions() + " entity expansions", locator);
+            }
+            if (lexicalHandler != null) {
+                lexicalHandler.startEntity(name);
+            }
+        }
+
+        @Override
+        public void endEntity(String name) throws SAXException {
+            if (lexicalHandler != null) {
+                lexicalHandler.endEntity(name);
+            }
+        }
+
+        @Override
+        public void startCDATA() throws SAXException {
+            if (lexicalHandler != null) {
+                lexicalHandler.startCDATA();
+            }
+        }
+
+        @Override
+        public void endCDATA() throws SAXException {
+            if (lexicalHandler != null) {
+                lexicalHandler.endCDATA();
+            }
+        }
+
+        @Override
+        public void comment(char[] ch, int start, int length) throws SAXException {
+            check();
+            if (lexicalHandler != null) {
+                lexicalHandler.comment(ch, start, length);
+            }
+        }
+    }
+
+    private interface IOSupplier<T> {
+        T get() throws IOException;
+    }
+
+    private static class SchemaRequiredException extends SAXException {
+        private static final long serialVersionUID = 1L;
+
+        SchemaRequiredException() {
+            super("schema validation required");
+        }
+    }
+
+    /**
+     * Decides from the root element whether a document declares a schema: a namespaced root or
+     * an xsi:schemaLocation/xsi:noNamespaceSchemaLocation hint aborts the scan with
+     * {@link SchemaRequiredException}; otherwise the rest of the document is only checked for well-formedness.
+     */
+    private static class SchemaDetector extends DefaultHandler {
+        private boolean rootSeen;
+
+        void reset() {
+            rootSeen = false;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+            if (rootSeen) {
+                return;
+            }
+            rootSeen = true;
+            if (!uri.isEmpty()
+                    || atts.getIndex(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "schemaLocation") >= 0
+                    || atts.getIndex(XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "noNamespaceSchemaLocation") >= 0) {
+                throw new SchemaRequiredException();
+            }
+        }
+    }
+
+    /**
+     * Forwards warnings and errors of the well-formedness scan; fatal errors are thrown by the parser
+     * and reported once by {@link XmlValidator#validate(Path)}.
+     */
+    private static class NonFatalErrorForwarder implements ErrorHandler {
+        private final ErrorHandler delegate;
+
+        NonFatalErrorForwarder(ErrorHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void warning(SAXParseException exception) throws SAXException {
+            delegate.warning(exception);
+        }
+
+        @Override
+        public void error(SAXParseException exception) throws SAXException {
+            delegate.error(exception);
+        }
+
+        @Override
+        public void fatalError(SAXParseException exception) throws SAXException {
+        }
+    }
+
     public static class XmlValidator {
-        private final ErrorHandler errHandler;
+        private ErrorHandler errHandler;
         private final Validator validator;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final ResourceLimits limits;
+        private final FailFastPolicy failFastPolicy;
+        private final EntityResolver entityResolver;
+        private final boolean schemalessFastPath;
+        private final ProgressReporter progress;
+        private final long generation;
+        private volatile FailFastRun run;
+        private FatalErrorTracker fatalErrorTracker;
+        private GuardingFilter reader;
+        private SchemaDetector schemaDetector;
 
         public XmlValidator(Validator validator, ErrorHandler errHandler) {
-            this.validator = validator;
+            this(validator, new ResourceLimits(), FailFastPolicy.NEVER, null, false, null, -1);
             this.errHandler = errHandler;
         }
 
+        XmlValidator(Validator validator, ResourceLimits limits, FailFastPolicy failFastPolicy,
+                     EntityResolver entityResolver, boolean schemalessFastPath, ProgressReporter progress,
+                     long generation) {
+            this.validator = validator;
+            this.limits = limits;
+            this.failFastPolicy = failFastPolicy;
+            this.entityResolver = entityResolver;
+            this.schemalessFastPath = schemalessFastPath;
+            this.progress = progress;
+            this.generation = generation;
+        }
+
+        long getGeneration() {
+            return generation;
+        }
+
         public ErrorHandler getErrHandler() {
             return errHandler;
         }
 
+        /**
+         * Routes errors of subsequent validations to the given handler, applying the fail-fast policy with
+         * the counts of {@code run}; validators bound to the same run stop together once it trips.
+         */
+        void bind(ErrorHandler errorHandler, FailFastRun run) {
+            cancelled.set(false);
+            this.run = run;
+            ErrorHandler effective = errorHandler;
+            if (failFastPolicy.getMode() != FailFastPolicy.Mode.NEVER) {
+                effective = new FailFastErrorHandler(errorHandler, failFastPolicy, run);
+            }
+            fatalErrorTracker = new FatalErrorTracker(effective);
+            validator.setErrorHandler(fatalErrorTracker);
+            this.errHandler = effective;
+        }
+
+        /**
+         * Returns the underlying validator to its initial state, keeping the resource resolver.
+         */
+        void reset() {
+            LSResourceResolver resourceResolver = validator.getResourceResolver();
+            validator.reset();
+            validator.setResourceResolver(resourceResolver);
+            validator.setErrorHandler(null);
+            errHandler = null;
+            fatalErrorTracker = null;
+            run = null;
+            cancelled.set(false);
+        }
+
+        /**
+         * Requests cancellation: files not yet started are skipped and an in-flight parse
+         * stops at its next SAX callback.
+         */
+        public void cancel() {
+            cancelled.set(true);
+        }
+
+        public boolean isCancelled() {
+            FailFastRun current = run;
+            return cancelled.get() || (current != null && current.isTripped());
+        }
+
+        private GuardingFilter getReader() throws Exception {
+            if (reader == null) {
+                SAXParserFactory factory = SAXParserFactory.newInstance();
+                factory.setNamespaceAware(true);
+                reader = new GuardingFilter(factory.newSAXParser().getXMLReader(), this::isCancelled, limits);
+            }
+            reader.reset();
+            return reader;
+        }
+
+        /**
+         * Parses the document without validation and tells whether it has to go through the schema validator.
+         */
+        private boolean requiresSchema(GuardingFilter reader, InputSource input) throws Exception {
+            if (schemaDetector == null) {
+                schemaDetector = new SchemaDetector();
+            }
+            schemaDetector.reset();
+            reader.setContentHandler(schemaDetector);
+            reader.setDTDHandler(null);
+            reader.setProperty(GuardingFilter.LEXICAL_HANDLER, null);
+            reader.setEntityResolver(entityResolver);
+            reader.setErrorHandler(new NonFatalErrorForwarder(errHandler));
+            try {
+                reader.parse(input);
+                return false;
+            } catch (SchemaRequiredException e) {
+                reader.resetDocumentState();
+                return true;
+            } finally {
+                reader.setContentHandler(null);
+                reader.setErrorHandler(null);
+            }
+        }
+
         public void validate(Path file) {
+            validate(file, file.toUri().toString(), () -> Files.size(file), null);
+        }
+
+        /**
+         * Validates an archive entry by streaming it from the archive; errors are located at
+         * {@code jar:<archive>!/<entry>}.
+         */
+        public void validate(ZipFile archive, ZipEntry entry) {
+            String systemId = "jar:" + new File(archive.getName()).toURI() + "!/" + entry.getName();
+            validate(systemId, systemId, entry::getSize, () -> archive.getInputStream(entry));
+        }
+
+        private InputSource newInput(String systemId, IOSupplier<InputStream> opener) throws IOException {
+            InputSource input = new InputSource(systemId);
+            if (opener != null) {
+                input.setByteStream(opener.get());
+            }
+            return input;
+        }
+
+        private void close(InputSource input) {
+            if (input != null && input.getByteStream() != null) {
+                try {
+                    input.getByteStream().close();
+                } catch (IOException e) {
+                    logger.debug("failed to close {}", input.getSystemId(), e);
+                }
+            }
+        }
+
+        private void validate(Object name, String systemId, IOSupplier<Long> size, IOSupplier<InputStream> opener) {
+            if (isCancelled()) {
+                logger.debug("validation cancelled, skipping file {}", name);
+                return;
+            }
+            InputSource input = null;
+            if (fatalErrorTracker != null) {
+                fatalErrorTracker.fatalReported = false;
+            }
             try {
-                logger.info("validating file {}", file);
-                validator.validate(new StreamSource(file.toFile()));
-                logger.info("validated file {}", file);
+                logger.debug("validating file {}", name);
+                if (limits.getMaxFileSize() > 0 && size.get() > limits.getMaxFileSize()) {
+                    throw new ResourceLimitException("file size " + size.get() + " exceeds "
+                            + limits.getMaxFileSize() + " bytes", systemId);
+                }
+                GuardingFilter reader = getReader();
+                if (schemalessFastPath) {
+                    input = newInput(systemId, opener);
+                    if (!requiresSchema(reader, input)) {
+                        logger.debug("checked well-formedness of file {}", name);
+                        return;
+                    }
+                    close(input);
+                }
+                input = newInput(systemId, opener);
+                validator.validate(new SAXSource(reader, input));
+                logger.debug("validated file {}", name);
+            } catch (ValidationCancelledException e) {
+                logger.info("validation of file {} stopped: {}", name, e.getMessage());
             } catch (SAXParseException e) {
                 logger.debug("got exception: {}", e);
+                if (fatalErrorTracker != null && fatalErrorTracker.fatalReported) {
+                    return;
+                }
                 try {
                     errHandler.fatalError(e);
+                } catch (ValidationCancelledException ce) {
+                    logger.info("validation of file {} stopped: {}", name, ce.getMessage());
                 } catch (SAXException se) {
-                    throw new RuntimeException("While parsing " + file + ": " + e.getMessage(), se);
+                    throw new RuntimeException("While parsing " + name + ": " + e.getMessage(), se);
                 }
             } catch (Exception e) {
-                throw new RuntimeException("While parsing " + file + ": " + e.getMessage(), e);
+                throw new RuntimeException("While parsing " + name + ": " + e.getMessage(), e);
+            } finally {
+                close(input);
+                if (progress != null) {
+                    progress.fileDone();
+                }
             }
 
         }
@@ -90,6 +608,7 @@ public class ValidatorBuilder {
 
     public ValidatorBuilder addCatalogs(List<Path> catalogs) {
         this.catalogs.addAll(catalogs);
+        invalidateSchema();
         return this;
     }
 
@@ -103,6 +622,7 @@ public class ValidatorBuilder {
                 .filter(this::isXMLFile)
                 .filter(this::isXMLCatalog)
                 .collect(Collectors.toList()));
+        invalidateSchema();
     }
 
     private StartElement getRootElement(InputStream is) throws Exception {
@@ -143,34 +663,222 @@ public class ValidatorBuilder {
         this.errorHandler = errorHandler;
     }
 
-    public XmlValidator build() {
+    private FailFastPolicy failFastPolicy = FailFastPolicy.NEVER;
+    private volatile FailFastRun failFastRun = new FailFastRun();
+
+    public FailFastPolicy getFailFastPolicy() {
+        return failFastPolicy;
+    }
+
+    public ValidatorBuilder setFailFastPolicy(FailFastPolicy failFastPolicy) {
+        this.failFastPolicy = failFastPolicy;
+        this.failFastRun = new FailFastRun();
+        configurationChanged();
+        return this;
+    }
 
+    /**
+     * The run whose counts the fail-fast policy is applied to; shared by every validator from {@link #build()}
+     * and by {@link ArchiveValidator}, so the policy covers loose files and archive entries together.
+     */
+    public FailFastRun getFailFastRun() {
+        return failFastRun;
+    }
+
+    /**
+     * Starts counting errors for the fail-fast policy from zero again.
+     */
+    public void resetFailFastRun() {
+        this.failFastRun = new FailFastRun();
+    }
+
+    private ResourceLimits resourceLimits = new ResourceLimits();
+
+    public ResourceLimits getResourceLimits() {
+        return resourceLimits;
+    }
+
+    public ValidatorBuilder setResourceLimits(ResourceLimits resourceLimits) {
+        this.resourceLimits = resourceLimits;
+        configurationChanged();
+        return this;
+    }
+
+    private ResolutionProfiler profiler;
+
+    public ResolutionProfiler getProfiler() {
+        return profiler;
+    }
+
+    public ValidatorBuilder setProfiler(ResolutionProfiler profiler) {
+        this.profiler = profiler;
+        invalidateSchema();
+        return this;
+    }
+
+    private boolean schemalessFastPath;
+
+    public boolean isSchemalessFastPath() {
+        return schemalessFastPath;
+    }
+
+    /**
+     * When enabled, documents whose root element declares no namespace and no xsi schema location are
+     * only checked for well-formedness instead of being passed to the schema validator.
+     */
+    public ValidatorBuilder setSchemalessFastPath(boolean schemalessFastPath) {
+        this.schemalessFastPath = schemalessFastPath;
+        configurationChanged();
+        return this;
+    }
+
+    private ProgressReporter progressReporter;
+
+    public ProgressReporter getProgressReporter() {
+        return progressReporter;
+    }
+
+    /**
+     * Counts every file handled by validators of this builder, replacing per-file log lines with periodic progress.
+     */
+    public ValidatorBuilder setProgressReporter(ProgressReporter progressReporter) {
+        this.progressReporter = progressReporter;
+        configurationChanged();
+        return this;
+    }
+
+    private SchemaSnapshot snapshot;
+
+    /**
+     * Resolves the schema closure of the catalogs added so far and writes it to {@code bundle}.
+     */
+    public void writeSnapshot(Path bundle) throws IOException {
+        writeSnapshot(bundle, "");
+    }
+
+    /**
+     * Like {@link #writeSnapshot(Path)}, storing {@code fingerprint} in the bundle header so a stale bundle
+     * can be detected with {@link SchemaSnapshot#readFingerprint(Path)}.
+     */
+    public void writeSnapshot(Path bundle, String fingerprint) throws IOException {
         try {
-            CatalogResolver res = createResolver(catalogs);
-            ResourcesResolver resourcesResolver = new ResourcesResolver(res);
+            SchemaSnapshot.create(catalogs, fingerprint).write(bundle);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Resolves schemas from a bundle written by {@link #writeSnapshot(Path)} instead of the catalogs.
+     */
+    public ValidatorBuilder useSnapshot(Path bundle) throws IOException {
+        this.snapshot = SchemaSnapshot.load(bundle);
+        invalidateSchema();
+        return this;
+    }
+
+    private Schema schema;
+    private ResourcesResolver resourcesResolver;
+
+    /**
+     * Creates the schema on first use and keeps it, with the grammars it has loaded, until the schema
+     * configuration (catalogs, snapshot or profiler) changes. Validators built before such a change keep
+     * using the schema they were built with; later {@link #build()} calls get a new one, and pools discard
+     * idle validators built before any configuration change (see {@link #getGeneration()}).
+     */
+    private synchronized Schema getSchema() throws Exception {
+        if (schema == null) {
+            if (snapshot != null) {
+                resourcesResolver = new ResourcesResolver(snapshot);
+            } else {
+                resourcesResolver = new ResourcesResolver(createResolver(catalogs));
+            }
+            if (profiler != null) {
+                logger.info("profiling schema resolution");
+                resourcesResolver.setProfiler(profiler);
+            }
 
             SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
             schemaFactory.setResourceResolver(resourcesResolver);
 
-            Schema schema = schemaFactory.newSchema();
-            Validator validator = schema.newValidator();
-            validator.setResourceResolver(resourcesResolver);
+            schema = schemaFactory.newSchema();
+        }
+        return schema;
+    }
+
+    private synchronized void invalidateSchema() {
+        schema = null;
+        resourcesResolver = null;
+        generation++;
+    }
+
+    private long generation;
+
+    private synchronized void configurationChanged() {
+        generation++;
+    }
+
+    /**
+     * Number of configuration changes so far; a validator built in an older generation no longer matches
+     * the builder's schema, limits, fail-fast policy, fast-path flag or progress reporter.
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    XmlValidator newXmlValidator() throws Exception {
+        Validator validator;
+        ResourcesResolver resolver;
+        long validatorGeneration;
+        synchronized (this) {
+            validator = getSchema().newValidator();
+            resolver = resourcesResolver;
+            validatorGeneration = generation;
+        }
+        validator.setResourceResolver(resolver);
+        return new XmlValidator(validator, resourceLimits, failFastPolicy, resolver, schemalessFastPath,
+                progressReporter, validatorGeneration);
+    }
+
+    public XmlValidator build() {
+
+        try {
+            XmlValidator validator = newXmlValidator();
 
             if (errorHandler != null) {
                 logger.info("using provided error handler");
-                validator.setErrorHandler(errorHandler);
+                validator.bind(errorHandler, failFastRun);
             } else {
                 logger.info("using default error handler");
-                validator.setErrorHandler(new RaisingErrorHandler());
+                validator.bind(new RaisingErrorHandler(), failFastRun);
             }
 
-            return new XmlValidator(validator, validator.getErrorHandler());
+            if (failFastPolicy.getMode() != FailFastPolicy.Mode.NEVER) {
+                logger.info("using {}", failFastPolicy);
+            }
+            if (!resourceLimits.isUnlimited()) {
+                logger.info("using {}", resourceLimits);
+            }
+
+            return validator;
         } catch (final Exception e) {
             throw new RuntimeException(e);
         }
     }
 
-    private static CatalogResolver createResolver(List<Path> catalogs) throws IOException {
+    /**
+     * Creates a pool of validators sharing this builder's schema.
+     *
+     * @param maxSize       maximum number of validators borrowed at the same time, zero or less for no limit
+     * @param maxIdleMillis idle validators older than this are discarded, zero or less to keep them
+     */
+    public ValidatorPool createPool(int maxSize, long maxIdleMillis) {
+        return new ValidatorPool(this, maxSize, maxIdleMillis);
+    }
+
+    static CatalogResolver createResolver(List<Path> catalogs) throws IOException {
 
         CatalogManager manager = new CatalogManager();
         manager.setIgnoreMissingProperties(true);
@@ -178,6 +886,8 @@ public class ValidatorBuilder {
             manager.setVerbosity(Integer.MAX_VALUE);
         }
         manager.setPreferPublic(true);
+        // the static catalog is shared by every resolver in the JVM, so catalogs of other builders would leak in
+        manager.setUseStaticCatalog(false);
 
         CatalogResolver resolver = new CatalogResolver(manager);
         logger.info("creating resolver");
@@ -0,0 +1,154 @@
+package com.github.and11;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.ErrorHandler;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of {@link ValidatorBuilder.XmlValidator} instances created from the schema of one builder.
+ * A borrowed validator reports to the error handler given on borrow and must be handed back with
+ * {@link #release(ValidatorBuilder.XmlValidator)}, which resets it for the next borrower. Idle validators
+ * built before a change to the builder's configuration are discarded rather than handed out again.
+ */
+public class ValidatorPool implements AutoCloseable {
+
+    public static final Logger logger = LoggerFactory.getLogger(ValidatorPool.class);
+
+    private static class Idle {
+        final ValidatorBuilder.XmlValidator validator;
+        final long since;
+
+        Idle(ValidatorBuilder.XmlValidator validator, long since) {
+            this.validator = validator;
+            this.since = since;
+        }
+    }
+
+    private final ValidatorBuilder builder;
+    private final Semaphore permits;
+    private final long maxIdleNanos;
+    private final Deque<Idle> idle = new ArrayDeque<>();
+    private final Set<ValidatorBuilder.XmlValidator> borrowed =
+            Collections.newSetFromMap(new IdentityHashMap<ValidatorBuilder.XmlValidator, Boolean>());
+    private boolean closed;
+
+    ValidatorPool(ValidatorBuilder builder, int maxSize, long maxIdleMillis) {
+        this.builder = builder;
+        this.permits = maxSize > 0 ? new Semaphore(maxSize, true) : null;
+        this.maxIdleNanos = maxIdleMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(maxIdleMillis) : 0;
+    }
+
+    /**
+     * Takes a validator from the pool, creating one if none is idle, and waits while the
+     * pool is at its size limit. The fail-fast policy is applied to this borrow alone.
+     */
+    public ValidatorBuilder.XmlValidator borrow(ErrorHandler errorHandler) {
+        return borrow(errorHandler, new FailFastRun());
+    }
+
+    /**
+     * Like {@link #borrow(ErrorHandler)}, counting errors for the fail-fast policy in the given run
+     * shared with other validators.
+     */
+    public ValidatorBuilder.XmlValidator borrow(ErrorHandler errorHandler, FailFastRun run) {
+        if (errorHandler == null) {
+            throw new IllegalArgumentException("errorHandler is required");
+        }
+        if (permits != null) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("interrupted while waiting for a validator", e);
+            }
+        }
+        try {
+            ValidatorBuilder.XmlValidator validator = takeIdle();
+            if (validator == null) {
+                logger.debug("creating pooled validator");
+                validator = builder.newXmlValidator();
+            }
+            validator.bind(errorHandler, run);
+            synchronized (this) {
+                borrowed.add(validator);
+            }
+            return validator;
+        } catch (final Exception e) {
+            if (permits != null) {
+                permits.release();
+            }
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns a borrowed validator to the pool.
+     *
+     * @throws IllegalArgumentException if the validator is not currently borrowed from this pool
+     */
+    public void release(ValidatorBuilder.XmlValidator validator) {
+        synchronized (this) {
+            if (!borrowed.remove(validator)) {
+                throw new IllegalArgumentException("validator is not borrowed from this pool");
+            }
+        }
+        try {
+            validator.reset();
+            long generation = builder.getGeneration();
+            synchronized (this) {
+                if (!closed && validator.getGeneration() == generation) {
+                    idle.push(new Idle(validator, System.nanoTime()));
+                }
+            }
+        } finally {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    private synchronized ValidatorBuilder.XmlValidator takeIdle() {
+        if (closed) {
+            throw new IllegalStateException("pool is closed");
+        }
+        evictIdle();
+        long generation = builder.getGeneration();
+        for (Idle top = idle.poll(); top != null; top = idle.poll()) {
+            if (top.validator.getGeneration() == generation) {
+                return top.validator;
+            }
+            logger.debug("discarding pooled validator built for an older configuration");
+        }
+        return null;
+    }
+
+    private void evictIdle() {
+        if (maxIdleNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        Iterator<Idle> oldestFirst = idle.descendingIterator();
+        while (oldestFirst.hasNext() && now - oldestFirst.next().since > maxIdleNanos) {
+            oldestFirst.remove();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        idle.clear();
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.and11;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class ArchiveValidatorTest {
+
+    private static final int VALID_ENTRIES = 40;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ValidatorBuilder builder;
+    private Path archive;
+
+    @Before
+    public void setUp() throws Exception {
+        builder = new ValidatorBuilder();
+        builder.scanCatalogs(TestSchemas.copyTo(folder.newFolder("schemas").toPath()));
+        archive = folder.getRoot().toPath().resolve("documents.jar");
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+            zip.putNextEntry(new ZipEntry("docs/"));
+            for (int i = 0; i < VALID_ENTRIES; i++) {
+                write(zip, "docs/valid" + i + ".xml", "<root xmlns=\"urn:test:a\"><value>" + i + "</value></root>");
+            }
+            write(zip, "docs/nested/invalid.xml", "<root xmlns=\"urn:test:a\"><value>x</value></root>");
+            write(zip, "invalid.xml", "<root xmlns=\"urn:test:a\"><value>1</value><value>y</value></root>");
+            write(zip, "README.txt", "<not xml");
+        }
+    }
+
+    private static void write(ZipOutputStream zip, String name, String content) throws Exception {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    @Test
+    public void parallelRunReportsErrorsAtTheirEntries() {
+        ValidationErrorHandler errorHandler = new ValidationErrorHandler();
+        try (ArchiveValidator validator = new ArchiveValidator(builder, 4)) {
+            validator.validate(archive, name -> name.endsWith(".xml"), errorHandler);
+        }
+
+        assertEquals(4, errorHandler.getErrorCount());
+        assertEquals(0, errorHandler.getFatalCount());
+        String prefix = "jar:" + archive.toFile().toURI() + "!/";
+        Set<String> locations = new HashSet<>();
+        for (ValidationErrorHandler.ErrorRecord error : errorHandler.getErrors()) {
+            locations.add(error.getException().getSystemId());
+        }
+        Set<String> expected = new HashSet<>();
+        expected.add(prefix + "docs/nested/invalid.xml");
+        expected.add(prefix + "invalid.xml");
+        assertEquals(expected, locations);
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.and11;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FailFastPolicyTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ValidatorBuilder builder;
+    private Path documents;
+
+    @Before
+    public void setUp() throws Exception {
+        builder = new ValidatorBuilder();
+        builder.scanCatalogs(TestSchemas.copyTo(folder.newFolder("schemas").toPath()));
+        documents = folder.newFolder("documents").toPath();
+    }
+
+    @Test
+    public void firstErrorStopsBuiltValidator() throws Exception {
+        builder.setFailFastPolicy(FailFastPolicy.firstError());
+        ValidationErrorHandler errorHandler = new ValidationErrorHandler();
+        builder.setErrorHandler(errorHandler);
+        ValidatorBuilder.XmlValidator validator = builder.build();
+
+        validator.validate(TestSchemas.document(documents, "invalid.xml", "x", "y"));
+        validator.validate(TestSchemas.document(documents, "other.xml", "z"));
+
+        assertTrue(validator.isCancelled());
+        assertEquals(1, errorHandler.getErrorCount());
+        assertEquals(1, builder.getFailFastRun().getErrorCount());
+    }
+
+    @Test
+    public void malformedDocumentCountsOnce() throws Exception {
+        builder.setFailFastPolicy(FailFastPolicy.maxErrors(2));
+        ValidationErrorHandler errorHandler = new ValidationErrorHandler();
+        builder.setErrorHandler(errorHandler);
+        ValidatorBuilder.XmlValidator validator = builder.build();
+
+        validator.validate(TestSchemas.write(documents, "malformed.xml", "<root xmlns=\"urn:test:a\"><value>1</root>"));
+
+        assertEquals(1, errorHandler.getFatalCount());
+        assertEquals(1, builder.getFailFastRun().getFatalCount());
+        assertFalse(validator.isCancelled());
+    }
+}
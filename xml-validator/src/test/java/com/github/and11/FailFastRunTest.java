@@ -0,0 +1,85 @@
+package com.github.and11;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FailFastRunTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ValidatorBuilder builder;
+    private Path invalid;
+
+    @Before
+    public void setUp() throws Exception {
+        builder = new ValidatorBuilder();
+        builder.scanCatalogs(TestSchemas.copyTo(folder.newFolder("schemas").toPath()));
+        builder.setFailFastPolicy(FailFastPolicy.maxErrors(3));
+        invalid = TestSchemas.document(folder.newFolder("documents").toPath(), "invalid.xml", "x");
+    }
+
+    @Test
+    public void maxErrorsIsCountedAcrossValidatorsOfOneRun() {
+        ValidationErrorHandler errorHandler = new ValidationErrorHandler();
+
+        try (ValidatorPool pool = builder.createPool(2, 0)) {
+            ValidatorBuilder.XmlValidator first = pool.borrow(errorHandler, builder.getFailFastRun());
+            ValidatorBuilder.XmlValidator second = pool.borrow(errorHandler, builder.getFailFastRun());
+
+            first.validate(invalid);
+            assertFalse(first.isCancelled());
+            second.validate(invalid);
+
+            assertTrue(builder.getFailFastRun().isTripped());
+            assertTrue(first.isCancelled());
+            assertTrue(second.isCancelled());
+            assertEquals(3, errorHandler.getErrorCount());
+
+            first.validate(invalid);
+            assertEquals(3, errorHandler.getErrorCount());
+            pool.release(first);
+            pool.release(second);
+        }
+    }
+
+    @Test
+    public void separateBorrowsCountSeparately() {
+        try (ValidatorPool pool = builder.createPool(2, 0)) {
+            ValidatorBuilder.XmlValidator first = pool.borrow(new ValidationErrorHandler());
+            ValidatorBuilder.XmlValidator second = pool.borrow(new ValidationErrorHandler());
+            first.validate(invalid);
+            second.validate(invalid);
+
+            assertFalse(first.isCancelled());
+            assertFalse(second.isCancelled());
+            pool.release(first);
+            pool.release(second);
+        }
+    }
+
+    @Test
+    public void resetStartsANewRun() {
+        ValidatorBuilder.XmlValidator validator;
+        try (ValidatorPool pool = builder.createPool(1, 0)) {
+            validator = pool.borrow(new ValidationErrorHandler(), builder.getFailFastRun());
+            validator.validate(invalid);
+            validator.validate(invalid);
+            assertTrue(validator.isCancelled());
+            pool.release(validator);
+
+            builder.resetFailFastRun();
+            validator = pool.borrow(new ValidationErrorHandler(), builder.getFailFastRun());
+            assertFalse(validator.isCancelled());
+            pool.release(validator);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.and11;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.ls.LSInput;
+import org.xml.sax.InputSource;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResolutionProfilerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void resourceIsOpenedOnFirstRead() throws Exception {
+        Path note = TestSchemas.write(folder.getRoot().toPath(), "note.dtd", "<!ENTITY greeting \"hello\">");
+        ResolutionProfiler profiler = new ResolutionProfiler();
+        LSInput input = profiler.record("dtd", null, "note.dtd", null,
+                new LSInputImpl(null, note.toUri().toString(), new InputSource()), 0);
+
+        assertTrue(note.toFile().delete());
+        input.getByteStream().close();
+        assertEquals(0, profiler.getEdges().get(0).getBytes());
+
+        note = TestSchemas.write(folder.getRoot().toPath(), "note.dtd", "<!ENTITY greeting \"hello\">");
+        input = profiler.record("dtd", null, "note.dtd", null,
+                new LSInputImpl(null, note.toUri().toString(), new InputSource()), 0);
+        try (InputStream content = input.getByteStream()) {
+            while (content.read() != -1) {
+                // consume
+            }
+        }
+        ResolutionProfiler.Edge edge = profiler.getEdges().get(1);
+        assertEquals(note.toFile().length(), edge.getBytes());
+        assertTrue(edge.getParseNanos() > 0);
+    }
+
+    @Test
+    public void reportListsSchemaDocumentsByParseTime() throws Exception {
+        ResolutionProfiler profiler = new ResolutionProfiler();
+        ValidatorBuilder builder = new ValidatorBuilder().setProfiler(profiler);
+        builder.scanCatalogs(TestSchemas.copyTo(folder.newFolder("schemas").toPath()));
+        ValidationErrorHandler errorHandler = new ValidationErrorHandler();
+        builder.setErrorHandler(errorHandler);
+        builder.build().validate(TestSchemas.document(folder.newFolder("documents").toPath(), "valid.xml", "1"));
+
+        assertEquals(0, errorHandler.getErrorCount());
+        String report = profiler.report();
+        assertTrue(report, report.contains("excluding grammar construction"));
+        assertTrue(report, report.matches("(?s).*  parse [0-9.]+ ms, read [0-9.]+ ms \\S+a\\.xsd.*"));
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.and11;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ResourceLimitsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ValidatorBuilder builder;
+    private Path documents;
+    private ValidationErrorHandler errorHandler;
+
+    @Before
+    public void setUp() throws Exception {
+        builder = new ValidatorBuilder();
+        builder.scanCatalogs(TestSchemas.copyTo(folder.newFolder("schemas").toPath()));
+        documents = folder.newFolder("documents").toPath();
+        errorHandler = new ValidationErrorHandler();
+        builder.setErrorHandler(errorHandler);
+    }
+
+    private void validate(ResourceLimits limits, Path document) {
+        builder.setResourceLimits(limits);
+        builder.build().validate(document);
+    }
+
+    private void assertOnlyLimit(String message) {
+        assertEquals(0, errorHandler.getFatalCount());
+        assertEquals(1, errorHandler.getLimitCount());
+        ValidationErrorHandler.ErrorRecord last = errorHandler.getErrors().get(errorHandler.getErrors().size() - 1);
+        assertTrue(last.isLimitExceeded());
+        assertEquals(message, last.getException().getMessage());
+    }
+
+    private Path entities(String name, int expansions, boolean inAttribute) throws Exception {
+        StringBuilder references = new StringBuilder();
+        for (int i = 0; i < expansions; i++) {
+            references.append("&e;");
+        }
+        String body = inAttribute
+                ? "<value id=\"" + references + "\">1</value>"
+                : "<note xmlns=\"urn:test:b\">" + references + "</note>";
+        return TestSchemas.write(documents, name, "<!DOCTYPE root [<!ENTITY e \"x\">]><root xmlns=\"urn:test:a\">"
+                + body + "</root>");
+    }
+
+    @Test
+    public void fileSize() throws Exception {
+        Path document = TestSchemas.document(documents, "large.xml", "1", "2", "3");
+        validate(new ResourceLimits().setMaxFileSize(10), document);
+        assertOnlyLimit("file size " + document.toFile().length() + " exceeds 10 bytes");
+    }
+
+    @Test
+    public void depth() throws Exception {
+        validate(new ResourceLimits().setMaxDepth(2),
+                TestSchemas.write(documents, "deep.xml", "<root xmlns=\"urn:test:a\"><value><a/></value></root>"));
+        assertOnlyLimit("element depth exceeds 2");
+    }
+
+    @Test
+    public void timeBudget() throws Exception {
+        String[] values = new String[200000];
+        Arrays.fill(values, "1");
+        validate(new ResourceLimits().setTimeBudgetMillis(1), TestSchemas.document(documents, "slow.xml", values));
+        assertOnlyLimit("time budget of 1 ms exceeded");
+    }
+
+    @Test
+    public void entityExpansionsInContent() throws Exception {
+        ResourceLimits limits = new ResourceLimits().setMaxEntityExpansions(1200);
+        validate(limits, entities("atLimit.xml", 1200, false));
+        assertEquals(0, errorHandler.getLimitCount());
+
+        validate(limits, entities("overLimit.xml", 1201, false));
+        assertOnlyLimit("more than 1200 entity expansions");
+    }
+
+    @Test
+    public void entityExpansionsInAttributes() throws Exception {
+        ResourceLimits limits = new ResourceLimits().setMaxEntityExpansions(1200);
+        validate(limits, entities("atLimit.xml", 1200, true));
+        assertEquals(0, errorHandler.getLimitCount());
+        assertEquals(0, errorHandler.getFatalCount());
+
+        validate(limits, entities("overLimit.xml", 1201, true));
+        assertOnlyLimit("more than 1200 entity expansions");
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.and11;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SchemaSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path schemas;
+    private Path documents;
+
+    @Before
+    public void setUp() throws Exception {
+        schemas = TestSchemas.copyTo(folder.newFolder("schemas").toPath());
+        documents = folder.newFolder("documents").toPath();
+    }
+
+    @Test
+    public void writtenSnapshotValidatesWithoutTheCatalogs() throws Exception {
+        Path bundle = folder.getRoot().toPath().resolve("schemas.bin");
+        ValidatorBuilder writer = new ValidatorBuilder();
+        writer.scanCatalogs(schemas);
+        writer.writeSnapshot(bundle, "deps-1");
+
+        for (File file : schemas.toFile().listFiles()) {
+            assertTrue(file.delete());
+        }
+
+        assertEquals("deps-1", SchemaSnapshot.readFingerprint(bundle));
+        SchemaSnapshot snapshot = SchemaSnapshot.load(bundle);
+        assertEquals("deps-1", snapshot.getFingerprint());
+        assertEquals(3, snapshot.size());
+
+        ValidatorBuilder builder = new ValidatorBuilder().useSnapshot(bundle);
+        ValidationErrorHandler errorHandler = new ValidationErrorHandler();
+        builder.setErrorHandler(errorHandler);
+        ValidatorBuilder.XmlValidator validator = builder.build();
+
+        validator.validate(TestSchemas.write(documents, "valid.xml",
+                "<!DOCTYPE root PUBLIC \"-//XML Tools//DTD Note//EN\" \"http://xml-tools.test/unknown.dtd\">"
+                        + "<root xmlns=\"urn:test:a\"><value>1</value><note xmlns=\"urn:test:b\">&greeting;</note></root>"));
+        assertEquals(Collections.emptyList(), errorHandler.getErrors());
+
+        validator.validate(TestSchemas.document(documents, "invalid.xml", "x"));
+        assertEquals(2, errorHandler.getErrorCount());
+    }
+
+    @Test
+    public void readFingerprintIgnoresOtherFiles() throws Exception {
+        assertNull(SchemaSnapshot.readFingerprint(schemas.resolve("missing.bin")));
+        assertNull(SchemaSnapshot.readFingerprint(schemas.resolve("catalog.xml")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void catalogWithRewriteEntriesIsRefused() throws Exception {
+        Path catalog = TestSchemas.write(schemas, "rewrite.xml",
+                "<catalog xmlns=\"urn:oasis:names:tc:entity:xmlns:xml:catalog\">"
+                        + "<rewriteSystem systemIdStartString=\"http://xml-tools.test/\" rewritePrefix=\"./\"/>"
+                        + "</catalog>");
+        SchemaSnapshot.create(Collections.singletonList(catalog));
+    }
+}
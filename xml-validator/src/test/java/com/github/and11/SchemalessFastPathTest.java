@@ -0,0 +1,81 @@
+package com.github.and11;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SchemalessFastPathTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ValidatorBuilder builder;
+    private Path documents;
+    private ValidationErrorHandler errorHandler;
+
+    @Before
+    public void setUp() throws Exception {
+        builder = new ValidatorBuilder();
+        builder.scanCatalogs(TestSchemas.copyTo(folder.newFolder("schemas").toPath()));
+        documents = folder.newFolder("documents").toPath();
+        errorHandler = new ValidationErrorHandler();
+        builder.setErrorHandler(errorHandler);
+    }
+
+    private void validate(boolean schemalessFastPath, Path document) {
+        builder.setSchemalessFastPath(schemalessFastPath);
+        builder.build().validate(document);
+    }
+
+    private void assertUndeclaredRoot() {
+        assertEquals(1, errorHandler.getErrorCount());
+        String message = errorHandler.getErrors().get(0).getException().getMessage();
+        assertTrue(message, message.startsWith("cvc-elt.1"));
+    }
+
+    @Test
+    public void plainDocumentIsOnlyCheckedForWellFormedness() throws Exception {
+        Path plain = TestSchemas.write(documents, "plain.xml", "<plain><item>1</item></plain>");
+
+        validate(true, plain);
+        assertEquals(Collections.emptyList(), errorHandler.getErrors());
+
+        validate(false, plain);
+        assertUndeclaredRoot();
+    }
+
+    @Test
+    public void malformedPlainDocumentReportsOneFatal() throws Exception {
+        validate(true, TestSchemas.write(documents, "malformed.xml", "<plain><item>1</plain>"));
+
+        assertEquals(1, errorHandler.getErrors().size());
+        assertEquals(1, errorHandler.getFatalCount());
+    }
+
+    @Test
+    public void namespacedDocumentIsValidated() throws Exception {
+        validate(true, TestSchemas.document(documents, "invalid.xml", "x"));
+
+        assertEquals(2, errorHandler.getErrorCount());
+    }
+
+    @Test
+    public void schemaLocationHintIsValidated() throws Exception {
+        TestSchemas.write(documents, "plain.xsd", "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">"
+                + "<xs:element name=\"plain\"><xs:complexType><xs:sequence>"
+                + "<xs:element name=\"item\" type=\"xs:int\"/>"
+                + "</xs:sequence></xs:complexType></xs:element></xs:schema>");
+        validate(true, TestSchemas.write(documents, "hinted.xml",
+                "<plain xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\""
+                        + " xsi:noNamespaceSchemaLocation=\"plain.xsd\"><item>x</item></plain>"));
+
+        assertEquals(2, errorHandler.getErrorCount());
+    }
+}
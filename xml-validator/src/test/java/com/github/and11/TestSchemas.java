@@ -0,0 +1,47 @@
+package com.github.and11;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Catalog and schemas of src/test/resources/schemas plus documents against them. Schema {@code urn:test:a}
+ * imports {@code urn:test:b} through a system id mapped by the catalog.
+ */
+final class TestSchemas {
+
+    private static final String[] FILES = {"catalog.xml", "a.xsd", "b.xsd", "note.dtd"};
+
+    private TestSchemas() {
+    }
+
+    /**
+     * Copies the catalog and its schemas into {@code dir}.
+     */
+    static Path copyTo(Path dir) throws IOException {
+        for (String file : FILES) {
+            try (InputStream is = TestSchemas.class.getResourceAsStream("/schemas/" + file)) {
+                Files.copy(is, dir.resolve(file));
+            }
+        }
+        return dir;
+    }
+
+    /**
+     * Writes a document with one {@code value} element per value; each non-integer value causes two errors.
+     */
+    static Path document(Path dir, String name, String... values) throws IOException {
+        StringBuilder content = new StringBuilder("<root xmlns=\"urn:test:a\">");
+        for (String value : values) {
+            content.append("<value>").append(value).append("</value>");
+        }
+        content.append("</root>");
+        return write(dir, name, content.toString());
+    }
+
+    static Path write(Path dir, String name, String content) throws IOException {
+        return Files.write(dir.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
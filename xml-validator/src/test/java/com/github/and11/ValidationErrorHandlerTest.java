@@ -0,0 +1,81 @@
+package com.github.and11;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.xml.sax.SAXParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ValidationErrorHandlerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void normalizeReplacesInstanceValues() {
+        assertEquals("cvc-datatype-valid.1.2.1: '*' is not a valid value for 'integer'.",
+                ValidationErrorHandler.normalize("cvc-datatype-valid.1.2.1",
+                        "cvc-datatype-valid.1.2.1: 'x' is not a valid value for 'integer'."));
+        assertEquals("cvc-maxLength-valid: Value '*' with length = '*' is not facet-valid with respect to"
+                        + " maxLength '3' for type 'short'.",
+                ValidationErrorHandler.normalize("cvc-maxLength-valid",
+                        "cvc-maxLength-valid: Value 'abcdef' with length = '6' is not facet-valid with respect to"
+                                + " maxLength '3' for type 'short'."));
+    }
+
+    @Test
+    public void normalizeKeepsOtherMessages() {
+        String message = "cvc-complex-type.2.4.a: Invalid content was found starting with element 'other'.";
+        assertEquals(message, ValidationErrorHandler.normalize("cvc-complex-type.2.4.a", message));
+        assertEquals("no code 'x'", ValidationErrorHandler.normalize(null, "no code 'x'"));
+    }
+
+    @Test
+    public void errorsAreGroupedWithLimitedSamples() throws Exception {
+        ValidatorBuilder builder = new ValidatorBuilder();
+        builder.scanCatalogs(TestSchemas.copyTo(folder.newFolder("schemas").toPath()));
+        ValidationErrorHandler errorHandler = new ValidationErrorHandler(2);
+        builder.setErrorHandler(errorHandler);
+        builder.build().validate(TestSchemas.document(folder.newFolder("documents").toPath(), "invalid.xml",
+                "x", "1", "y", "z"));
+
+        assertEquals(6, errorHandler.getErrorCount());
+        assertTrue(errorHandler.getErrors().isEmpty());
+        List<String> components = new ArrayList<>();
+        for (ValidationErrorHandler.ErrorGroup group : errorHandler.getErrorGroups()) {
+            components.add(group.getComponent());
+            assertEquals(ValidationErrorHandler.ErrorType.ERROR, group.getType());
+            assertEquals(3, group.getCount());
+            assertEquals(2, group.getSamples().size());
+            assertTrue(group.getMessage(), group.getMessage().contains("'*'"));
+            assertTrue(group.getExample(), group.getExample().contains("'x'"));
+        }
+        assertEquals(2, components.size());
+        assertTrue(components.contains("cvc-datatype-valid.1.2.1"));
+        assertTrue(components.contains("cvc-type.3.1.3"));
+    }
+
+    @Test
+    public void zeroSamplesKeepsCounts() throws Exception {
+        ValidationErrorHandler errorHandler = new ValidationErrorHandler(0);
+        for (String value : new String[]{"a", "b"}) {
+            errorHandler.error(new SAXParseException(
+                    "cvc-enumeration-valid: Value '" + value + "' is not facet-valid.", null));
+        }
+
+        assertEquals(1, errorHandler.getErrorGroups().size());
+        ValidationErrorHandler.ErrorGroup group = errorHandler.getErrorGroups().iterator().next();
+        assertEquals(2, group.getCount());
+        assertTrue(group.getSamples().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeSampleLimitIsRejected() {
+        new ValidationErrorHandler(-1);
+    }
+}
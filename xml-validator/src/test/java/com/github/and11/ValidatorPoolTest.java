@@ -0,0 +1,131 @@
+package com.github.and11;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class ValidatorPoolTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ValidatorBuilder builder;
+    private Path valid;
+    private Path invalid;
+
+    @Before
+    public void setUp() throws Exception {
+        builder = new ValidatorBuilder();
+        builder.scanCatalogs(TestSchemas.copyTo(folder.newFolder("schemas").toPath()));
+        Path documents = folder.newFolder("documents").toPath();
+        valid = TestSchemas.document(documents, "valid.xml", "1", "2");
+        invalid = TestSchemas.document(documents, "invalid.xml", "1", "x");
+    }
+
+    @Test
+    public void releasedValidatorIsReused() {
+        try (ValidatorPool pool = builder.createPool(2, 0)) {
+            ValidatorBuilder.XmlValidator first = pool.borrow(new ValidationErrorHandler());
+            assertEquals(0, pool.getIdleCount());
+            pool.release(first);
+            assertEquals(1, pool.getIdleCount());
+
+            ValidatorBuilder.XmlValidator second = pool.borrow(new ValidationErrorHandler());
+            assertSame(first, second);
+            assertEquals(0, pool.getIdleCount());
+            pool.release(second);
+        }
+    }
+
+    @Test
+    public void idleValidatorIsEvicted() throws Exception {
+        try (ValidatorPool pool = builder.createPool(2, 50)) {
+            ValidatorBuilder.XmlValidator first = pool.borrow(new ValidationErrorHandler());
+            pool.release(first);
+            Thread.sleep(200);
+
+            ValidatorBuilder.XmlValidator second = pool.borrow(new ValidationErrorHandler());
+            assertNotSame(first, second);
+            assertEquals(0, pool.getIdleCount());
+            pool.release(second);
+        }
+    }
+
+    @Test
+    public void configurationChangeDiscardsIdleValidators() throws Exception {
+        try (ValidatorPool pool = builder.createPool(2, 0)) {
+            ValidatorBuilder.XmlValidator first = pool.borrow(new ValidationErrorHandler());
+            pool.release(first);
+            builder.setFailFastPolicy(FailFastPolicy.firstError());
+
+            ValidationErrorHandler errorHandler = new ValidationErrorHandler();
+            ValidatorBuilder.XmlValidator second = pool.borrow(errorHandler);
+            assertNotSame(first, second);
+            assertEquals(0, pool.getIdleCount());
+            second.validate(invalid);
+            assertEquals(1, errorHandler.getErrorCount());
+
+            ValidatorBuilder.XmlValidator stale = pool.borrow(new ValidationErrorHandler());
+            builder.scanCatalogs(folder.getRoot().toPath().resolve("schemas"));
+            pool.release(stale);
+            assertEquals(0, pool.getIdleCount());
+            pool.release(second);
+            assertEquals(0, pool.getIdleCount());
+        }
+    }
+
+    @Test
+    public void secondReleaseIsRejected() {
+        try (ValidatorPool pool = builder.createPool(1, 0)) {
+            ValidatorBuilder.XmlValidator validator = pool.borrow(new ValidationErrorHandler());
+            pool.release(validator);
+            try {
+                pool.release(validator);
+                fail("second release accepted");
+            } catch (IllegalArgumentException expected) {
+                // the permit and idle entry were returned once
+            }
+            assertEquals(1, pool.getIdleCount());
+
+            ValidatorBuilder.XmlValidator first = pool.borrow(new ValidationErrorHandler());
+            assertSame(validator, first);
+            assertEquals(0, pool.getIdleCount());
+            pool.release(first);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void releaseWithoutBorrowIsRejected() throws Exception {
+        try (ValidatorPool pool = builder.createPool(1, 0)) {
+            pool.release(builder.build());
+        }
+    }
+
+    @Test
+    public void errorsGoToTheHandlerOfTheCurrentBorrow() {
+        try (ValidatorPool pool = builder.createPool(1, 0)) {
+            ValidationErrorHandler firstHandler = new ValidationErrorHandler();
+            ValidatorBuilder.XmlValidator first = pool.borrow(firstHandler);
+            first.validate(invalid);
+            pool.release(first);
+
+            ValidationErrorHandler secondHandler = new ValidationErrorHandler();
+            ValidatorBuilder.XmlValidator second = pool.borrow(secondHandler);
+            assertSame(first, second);
+            second.validate(invalid);
+            second.validate(valid);
+            pool.release(second);
+
+            assertEquals(2, firstHandler.getErrorCount());
+            assertEquals(2, secondHandler.getErrorCount());
+        }
+    }
+}